@@ -0,0 +1,89 @@
+-- -----------------------------------------------------
+-- Cost of the hot queries before and after the composite indexes
+-- Run it once on a copy of the database before the migration V2, then once after it,
+-- and compare the plans (type, key, rows, Extra) and the Handler_read counters
+-- -----------------------------------------------------
+USE `gnw` ;
+
+SET @etudiant = (SELECT MIN(`fk_etudiant`) FROM `gnw_etudiant_groupe`);
+SET @groupe = (SELECT `fk_groupe` FROM `gnw_etudiant_groupe` WHERE `fk_etudiant` = @etudiant LIMIT 1);
+SET @examen = (SELECT MAX(`id`) FROM `gnw_examen`);
+SET @matiere = (SELECT `fk_matiere` FROM `gnw_examen` WHERE `id` = @examen);
+SET @professeur = (SELECT `fk_professeur` FROM `gnw_examen` WHERE `id` = @examen);
+SET @adresse_mail = (SELECT `adresse_mail` FROM `gnw_utilisateur` WHERE `profil` = 1 LIMIT 1);
+
+
+-- -----------------------------------------------------
+-- Score of a student in a test
+-- -----------------------------------------------------
+EXPLAIN SELECT `id`, `note` FROM `gnw_examen_note`
+  WHERE `fk_examen` = @examen AND `fk_etudiant` = @etudiant AND `date_suppr` IS NULL;
+
+FLUSH STATUS;
+SELECT `id`, `note` FROM `gnw_examen_note`
+  WHERE `fk_examen` = @examen AND `fk_etudiant` = @etudiant AND `date_suppr` IS NULL;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+
+-- -----------------------------------------------------
+-- Average of a test
+-- -----------------------------------------------------
+EXPLAIN SELECT AVG(`note`) FROM `gnw_examen_note`
+  WHERE `fk_examen` = @examen AND `date_suppr` IS NULL;
+
+FLUSH STATUS;
+SELECT AVG(`note`) FROM `gnw_examen_note`
+  WHERE `fk_examen` = @examen AND `date_suppr` IS NULL;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+
+-- -----------------------------------------------------
+-- Login of a teacher
+-- -----------------------------------------------------
+EXPLAIN SELECT `id`, `nom`, `prenom`, `adresse_mail` FROM `gnw_utilisateur`
+  WHERE `profil` = 1 AND `adresse_mail` = @adresse_mail AND `date_suppr` IS NULL;
+
+FLUSH STATUS;
+SELECT `id`, `nom`, `prenom`, `adresse_mail` FROM `gnw_utilisateur`
+  WHERE `profil` = 1 AND `adresse_mail` = @adresse_mail AND `date_suppr` IS NULL;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+
+-- -----------------------------------------------------
+-- First page of the student search
+-- -----------------------------------------------------
+EXPLAIN SELECT `gnw_utilisateur`.`id`, `gnw_utilisateur`.`nom` FROM `gnw_utilisateur`, `gnw_etudiant_groupe`
+  WHERE `profil` = 0 AND `gnw_utilisateur`.`date_suppr` IS NULL AND `gnw_utilisateur`.`id` = `gnw_etudiant_groupe`.`fk_etudiant`
+  ORDER BY `gnw_utilisateur`.`nom`, `gnw_utilisateur`.`id` LIMIT 51;
+
+FLUSH STATUS;
+SELECT `gnw_utilisateur`.`id`, `gnw_utilisateur`.`nom` FROM `gnw_utilisateur`, `gnw_etudiant_groupe`
+  WHERE `profil` = 0 AND `gnw_utilisateur`.`date_suppr` IS NULL AND `gnw_utilisateur`.`id` = `gnw_etudiant_groupe`.`fk_etudiant`
+  ORDER BY `gnw_utilisateur`.`nom`, `gnw_utilisateur`.`id` LIMIT 51;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+
+-- -----------------------------------------------------
+-- Tests of a subject and a group
+-- -----------------------------------------------------
+EXPLAIN SELECT `id`, `nom`, `coefficient` FROM `gnw_examen`
+  WHERE `fk_matiere` = @matiere AND `fk_groupe` = @groupe AND `date_suppr` IS NULL;
+
+FLUSH STATUS;
+SELECT `id`, `nom`, `coefficient` FROM `gnw_examen`
+  WHERE `fk_matiere` = @matiere AND `fk_groupe` = @groupe AND `date_suppr` IS NULL;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+
+-- -----------------------------------------------------
+-- First page of the tests of a teacher
+-- -----------------------------------------------------
+EXPLAIN SELECT `id`, `nom` FROM `gnw_examen`
+  WHERE `fk_professeur` = @professeur AND `date_suppr` IS NULL
+  ORDER BY `nom`, `id` LIMIT 51;
+
+FLUSH STATUS;
+SELECT `id`, `nom` FROM `gnw_examen`
+  WHERE `fk_professeur` = @professeur AND `date_suppr` IS NULL
+  ORDER BY `nom`, `id` LIMIT 51;
+SHOW SESSION STATUS LIKE 'Handler_read%';
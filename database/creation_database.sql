@@ -26,7 +26,10 @@ CREATE TABLE IF NOT EXISTS `gnw`.`gnw_utilisateur` (
   `date_suppr` TIMESTAMP NULL,
   `fk_utilisateur` INT(11) NULL DEFAULT NULL,
   PRIMARY KEY (`id`),
-  INDEX `gnw_utilisateur.fk_utilisateur_idx` (`fk_utilisateur` ASC))
+  INDEX `gnw_utilisateur.fk_utilisateur_idx` (`fk_utilisateur` ASC),
+  INDEX `gnw_utilisateur.profil_adresse_mail_date_suppr_idx` (`profil` ASC, `adresse_mail` ASC, `date_suppr` ASC),
+  INDEX `gnw_utilisateur.profil_date_suppr_nom_idx` (`profil` ASC, `date_suppr` ASC, `nom` ASC, `id` ASC),
+  INDEX `gnw_utilisateur.adresse_mail_date_suppr_idx` (`adresse_mail` ASC, `date_suppr` ASC))
 ENGINE = InnoDB;
 
 
@@ -83,6 +86,9 @@ CREATE TABLE IF NOT EXISTS `gnw`.`gnw_examen` (
   `fk_matiere` INT(11) NOT NULL,
   `coefficient` FLOAT NOT NULL,
   `moyenne` FLOAT NULL DEFAULT 0,
+  `nb_notes` INT(11) NOT NULL DEFAULT 0,
+  `note_min` FLOAT NULL DEFAULT NULL,
+  `note_max` FLOAT NULL DEFAULT NULL,
   `date_creat` TIMESTAMP NOT NULL,
   `date_modif` TIMESTAMP NULL,
   `date_suppr` TIMESTAMP NULL,
@@ -92,7 +98,10 @@ CREATE TABLE IF NOT EXISTS `gnw`.`gnw_examen` (
   INDEX `gnw_examen.fk_format_idx` (`fk_format` ASC),
   INDEX `gnw_examen.fk_professeur_idx` (`fk_professeur` ASC),
   INDEX `gnw_examen.fk_groupe_idx` (`fk_groupe` ASC),
-  INDEX `gnw_examen.fk_matiere_idx` (`fk_matiere` ASC))
+  INDEX `gnw_examen.fk_matiere_idx` (`fk_matiere` ASC),
+  INDEX `gnw_examen.fk_matiere_fk_groupe_date_suppr_idx` (`fk_matiere` ASC, `fk_groupe` ASC, `date_suppr` ASC),
+  INDEX `gnw_examen.fk_groupe_date_suppr_idx` (`fk_groupe` ASC, `date_suppr` ASC),
+  INDEX `gnw_examen.fk_professeur_date_suppr_nom_idx` (`fk_professeur` ASC, `date_suppr` ASC, `nom` ASC, `id` ASC))
 ENGINE = InnoDB;
 
 
@@ -110,7 +119,9 @@ CREATE TABLE IF NOT EXISTS `gnw`.`gnw_etudiant_groupe` (
   PRIMARY KEY (`id`),
   INDEX `gnw_etudiant_groupe.fk_groupe_idx` (`fk_groupe` ASC),
   INDEX `gnw_etudiant_groupe.fk_etudiant_idx` (`fk_etudiant` ASC),
-  INDEX `gnw_etudiant_groupe.fk_utilisateur_idx` (`fk_utilisateur` ASC))
+  INDEX `gnw_etudiant_groupe.fk_utilisateur_idx` (`fk_utilisateur` ASC),
+  INDEX `gnw_etudiant_groupe.fk_etudiant_fk_groupe_idx` (`fk_etudiant` ASC, `fk_groupe` ASC),
+  INDEX `gnw_etudiant_groupe.fk_groupe_fk_etudiant_idx` (`fk_groupe` ASC, `fk_etudiant` ASC))
 ENGINE = InnoDB;
 
 
@@ -163,12 +174,27 @@ CREATE TABLE IF NOT EXISTS `gnw`.`gnw_examen_note` (
   `date_suppr` TIMESTAMP NULL,
   `fk_utilisateur` INT(11) NULL DEFAULT NULL,
   PRIMARY KEY (`id`),
+  UNIQUE INDEX `gnw_examen_note.fk_examen_fk_etudiant_UNIQUE` (`fk_examen` ASC, `fk_etudiant` ASC),
   INDEX `gnw_examen_note.fk_etudiant_idx` (`fk_etudiant` ASC),
-  INDEX `gnw_examen_note.fk_examen_idx` (`fk_examen` ASC),
+  INDEX `gnw_examen_note.fk_examen_fk_etudiant_date_suppr_idx` (`fk_examen` ASC, `fk_etudiant` ASC, `date_suppr` ASC),
+  INDEX `gnw_examen_note.fk_examen_date_suppr_note_idx` (`fk_examen` ASC, `date_suppr` ASC, `note` ASC),
   INDEX `gnw_examen_note.fk_utilisateur_idx` (`fk_utilisateur` ASC))
 ENGINE = InnoDB;
 
 
+-- -----------------------------------------------------
+-- Table `gnw`.`gnw_moyenne_matiere`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gnw`.`gnw_moyenne_matiere` (
+  `fk_etudiant` INT(11) NOT NULL,
+  `fk_matiere` INT(11) NOT NULL,
+  `somme_ponderee` DOUBLE NOT NULL DEFAULT 0,
+  `somme_coefficients` DOUBLE NOT NULL DEFAULT 0,
+  `nb_notes` INT(11) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`fk_etudiant`, `fk_matiere`))
+ENGINE = InnoDB;
+
+
 SET SQL_MODE=@OLD_SQL_MODE;
 SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS;
 SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS;
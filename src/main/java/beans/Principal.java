@@ -0,0 +1,241 @@
+package beans;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+public final class Principal implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public  static final int  STUDENT          = 0;
+    public  static final int  TEACHER          = 1;
+    public  static final int  ADMINISTRATOR    = 2;
+    private final long   id;
+    private final int    profile;
+    private final String firstName;
+    private final String lastName;
+    private final Long   groupId;
+
+    /**
+     * Constructor
+     * @param id
+     * @param profile STUDENT, TEACHER or ADMINISTRATOR
+     * @param firstName
+     * @param lastName
+     * @param groupId null but for a student
+     */
+    public Principal(long id, int profile, String firstName, String lastName, Long groupId) {
+        this.id = id;
+        this.profile = profile;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.groupId = groupId;
+    }
+
+    /**
+     * Returns the principal of a user who just logged in
+     * @param user Student, Teacher or Administrator
+     * @return principal
+     */
+    public static Principal of(User user) {
+        Long groupId = null;
+        int  profile;
+
+        if (user instanceof Student) {
+            Group group = ((Student) user).getGroup();
+
+            profile = STUDENT;
+            groupId = (group == null) ? null : group.getId();
+        }
+        else if (user instanceof Teacher) {
+            profile = TEACHER;
+        }
+        else {
+            profile = ADMINISTRATOR;
+        }
+
+        return new Principal(user.getId(), profile, user.getFirstName(), user.getLastName(), groupId);
+    }
+
+    /**
+     * Returns user's id
+     * @return id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns user's profile
+     * @return profile
+     */
+    public int getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns user's first name
+     * @return firstName
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * Returns user's last name
+     * @return lastName
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * Returns user's first and last names
+     * @return displayName
+     */
+    public String getDisplayName() {
+        return firstName + " " + lastName;
+    }
+
+    /**
+     * Returns student's group id
+     * @return groupId, null for a teacher or an administrator
+     */
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * Returns true if the user is a student
+     * @return student
+     */
+    public boolean isStudent() {
+        return profile == STUDENT;
+    }
+
+    /**
+     * Returns true if the user is a teacher
+     * @return teacher
+     */
+    public boolean isTeacher() {
+        return profile == TEACHER;
+    }
+
+    /**
+     * Returns true if the user is an administrator
+     * @return administrator
+     */
+    public boolean isAdministrator() {
+        return profile == ADMINISTRATOR;
+    }
+
+    /**
+     * Returns a student holding the identity of the principal, its group only has an id
+     * @return student
+     */
+    public Student toStudent() {
+        Student student = new Student();
+
+        fill(student);
+
+        if (groupId != null) {
+            Group group = new Group();
+
+            group.setId(groupId);
+            student.setGroup(group);
+        }
+
+        return student;
+    }
+
+    /**
+     * Returns a teacher holding the identity of the principal, without groups nor subjects
+     * @return teacher
+     */
+    public Teacher toTeacher() {
+        Teacher teacher = new Teacher();
+
+        fill(teacher);
+
+        return teacher;
+    }
+
+    /**
+     * Returns an administrator holding the identity of the principal
+     * @return administrator
+     */
+    public Administrator toAdministrator() {
+        Administrator administrator = new Administrator();
+
+        fill(administrator);
+
+        return administrator;
+    }
+
+    /**
+     * Copies the identity of the principal into a user
+     * @param user
+     */
+    private void fill(User user) {
+        user.setId(id);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+    }
+
+    /**
+     * Replaces the principal by its compact form when the session is written
+     * @return serializedForm
+     */
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    /**
+     * Refuses a principal written without its compact form
+     * @param stream
+     * @throws InvalidObjectException
+     */
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("Principal sans forme compacte");
+    }
+
+    /**
+     * Compact form of a principal, written field by field without class descriptors for the fields
+     */
+    private static final class SerializedForm implements Externalizable {
+        private static final long serialVersionUID = 1L;
+        private Principal principal;
+
+        public SerializedForm() {
+        }
+
+        SerializedForm(Principal principal) {
+            this.principal = principal;
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeLong(principal.id);
+            out.writeByte(principal.profile);
+            out.writeUTF((principal.firstName == null) ? "" : principal.firstName);
+            out.writeUTF((principal.lastName == null) ? "" : principal.lastName);
+            out.writeLong((principal.groupId == null) ? -1L : principal.groupId);
+        }
+
+        public void readExternal(ObjectInput in) throws IOException {
+            long   id        = in.readLong();
+            int    profile   = in.readByte();
+            String firstName = in.readUTF();
+            String lastName  = in.readUTF();
+            long   groupId   = in.readLong();
+
+            this.principal = new Principal(id, profile, firstName, lastName, (groupId == -1L) ? null : groupId);
+        }
+
+        private Object readResolve() {
+            return principal;
+        }
+    }
+}
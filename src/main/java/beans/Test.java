@@ -12,6 +12,9 @@ public class Test implements Comparable<Test> {
     private Subject    subject;
     private Set<Score> scores;
     private Float      average;
+    private Integer    scoreCount;
+    private Float      minScore;
+    private Float      maxScore;
     private Float      coefficient;
 
     /**
@@ -27,6 +30,9 @@ public class Test implements Comparable<Test> {
         this.subject = null;
         this.scores = null;
         this.average = null;
+        this.scoreCount = null;
+        this.minScore = null;
+        this.maxScore = null;
         this.coefficient = null;
     }
 
@@ -44,6 +50,9 @@ public class Test implements Comparable<Test> {
         this.subject = test.getSubject();
         this.scores = test.getScores();
         this.average = test.getAverage();
+        this.scoreCount = test.getScoreCount();
+        this.minScore = test.getMinScore();
+        this.maxScore = test.getMaxScore();
         this.coefficient = test.getCoefficient();
     }
 
@@ -191,6 +200,54 @@ public class Test implements Comparable<Test> {
         this.average = average;
     }
 
+    /**
+     * Returns the number of scores of the test
+     * @return scoreCount
+     */
+    public Integer getScoreCount() {
+        return scoreCount;
+    }
+
+    /**
+     * Sets the number of scores of the test
+     * @param scoreCount
+     */
+    public void setScoreCount(Integer scoreCount) {
+        this.scoreCount = scoreCount;
+    }
+
+    /**
+     * Returns the lowest score of the test
+     * @return minScore
+     */
+    public Float getMinScore() {
+        return minScore;
+    }
+
+    /**
+     * Sets the lowest score of the test
+     * @param minScore
+     */
+    public void setMinScore(Float minScore) {
+        this.minScore = minScore;
+    }
+
+    /**
+     * Returns the highest score of the test
+     * @return maxScore
+     */
+    public Float getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Sets the highest score of the test
+     * @param maxScore
+     */
+    public void setMaxScore(Float maxScore) {
+        this.maxScore = maxScore;
+    }
+
     /**
      * Returns test coefficient
      * @return coefficient
@@ -0,0 +1,184 @@
+package config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.Part;
+
+final class DetachedRequest {
+
+    private DetachedRequest() {
+    }
+
+    /**
+     * Copies the parameters, the session attributes and the uploaded parts of a request into a request usable
+     * after the container recycled the original one, any other method throws IllegalStateException
+     * @param request
+     * @return detached request
+     * @throws IOException
+     * @throws ServletException
+     */
+    static HttpServletRequest of(HttpServletRequest request) throws IOException, ServletException {
+        Map<String, String[]> parameters = new HashMap<String, String[]>(request.getParameterMap());
+        Map<String, Object>   attributes = new HashMap<String, Object>();
+        Map<String, Part>     parts      = new HashMap<String, Part>();
+        HttpSession           session    = request.getSession(false);
+        String                type       = request.getContentType();
+        String                address    = request.getRemoteAddr();
+
+        if (session != null) {
+            for (Enumeration<String> names = session.getAttributeNames(); names.hasMoreElements();) {
+                String name = names.nextElement();
+
+                attributes.put(name, session.getAttribute(name));
+            }
+        }
+
+        if ((type != null) && type.toLowerCase().startsWith("multipart/")) {
+            for (Part part : request.getParts()) {
+                parts.put(part.getName(), new DetachedPart(part));
+            }
+        }
+
+        HttpSession detachedSession = (HttpSession) Proxy.newProxyInstance(DetachedRequest.class.getClassLoader(), new Class<?>[]{HttpSession.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getAttribute":
+                    return attributes.get(args[0]);
+                case "getAttributeNames":
+                    return Collections.enumeration(attributes.keySet());
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "DetachedSession" + attributes.keySet();
+                default:
+                    throw new IllegalStateException("Session indisponible hors du thread de la requête : " + method.getName());
+            }
+        });
+
+        return (HttpServletRequest) Proxy.newProxyInstance(DetachedRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+            String[] values;
+
+            switch (method.getName()) {
+                case "getParameter":
+                    values = parameters.get(args[0]);
+                    return ((values == null) || (values.length == 0)) ? null : values[0];
+                case "getParameterValues":
+                    values = parameters.get(args[0]);
+                    return (values == null) ? null : values.clone();
+                case "getParameterMap":
+                    return Collections.unmodifiableMap(parameters);
+                case "getParameterNames":
+                    return Collections.enumeration(parameters.keySet());
+                case "getSession":
+                    return ((session == null) && (args != null) && Boolean.FALSE.equals(args[0])) ? null : detachedSession;
+                case "getPart":
+                    return parts.get(args[0]);
+                case "getParts":
+                    return Collections.unmodifiableCollection(parts.values());
+                case "getContentType":
+                    return type;
+                case "getRemoteAddr":
+                    return address;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "DetachedRequest" + parameters.keySet();
+                default:
+                    throw new IllegalStateException("Requête indisponible hors du thread de la requête : " + method.getName());
+            }
+        });
+    }
+
+    /**
+     * Uploaded part read in memory, the upload limits of the servlets keep it small
+     */
+    private static final class DetachedPart implements Part {
+        private final String                    name;
+        private final String                    submittedFileName;
+        private final String                    contentType;
+        private final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        private final byte[]                    content;
+
+        DetachedPart(Part part) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.max(0, Math.min(part.getSize(), Integer.MAX_VALUE)));
+            byte[]                chunk  = new byte[8192];
+            int                   length;
+
+            this.name = part.getName();
+            this.submittedFileName = part.getSubmittedFileName();
+            this.contentType = part.getContentType();
+
+            for (String header : part.getHeaderNames()) {
+                headers.put(header.toLowerCase(), new ArrayList<String>(part.getHeaders(header)));
+            }
+
+            try (InputStream input = part.getInputStream()) {
+                while ((length = input.read(chunk)) != -1) {
+                    output.write(chunk, 0, length);
+                }
+            }
+
+            this.content = output.toByteArray();
+        }
+
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSubmittedFileName() {
+            return submittedFileName;
+        }
+
+        public long getSize() {
+            return content.length;
+        }
+
+        public void write(String fileName) {
+            throw new UnsupportedOperationException("Écriture d'un fichier détaché");
+        }
+
+        public void delete() {
+        }
+
+        public String getHeader(String header) {
+            List<String> values = headers.get(header.toLowerCase());
+
+            return ((values == null) || values.isEmpty()) ? null : values.get(0);
+        }
+
+        public Collection<String> getHeaders(String header) {
+            List<String> values = headers.get(header.toLowerCase());
+
+            return (values == null) ? Collections.<String>emptyList() : Collections.unmodifiableList(values);
+        }
+
+        public Collection<String> getHeaderNames() {
+            return Collections.unmodifiableSet(headers.keySet());
+        }
+    }
+}
@@ -22,6 +22,9 @@ public class InitialisationDaoFactory implements ServletContextListener {
     }
 
     public void contextDestroyed(ServletContextEvent arg0) {
+        if (this.daoFactory != null) {
+            this.daoFactory.close();
+        }
     }
 
 }
\ No newline at end of file
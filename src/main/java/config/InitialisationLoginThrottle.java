@@ -0,0 +1,52 @@
+package config;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+@WebListener
+public class InitialisationLoginThrottle implements ServletContextListener {
+    private static final String LOGIN_THROTTLE        = "loginthrottle";
+    private static final String PARAM_MAX_PER_EMAIL   = "loginThrottle.maxFailuresPerEmail";
+    private static final String PARAM_MAX_PER_ADDRESS = "loginThrottle.maxFailuresPerAddress";
+    private static final String PARAM_WINDOW          = "loginThrottle.window";
+
+    public InitialisationLoginThrottle() {
+    }
+
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext servletContext = event.getServletContext();
+        LoginThrottle  loginThrottle  = new LoginThrottle(
+            getIntParameter(servletContext, PARAM_MAX_PER_EMAIL, 5),
+            getIntParameter(servletContext, PARAM_MAX_PER_ADDRESS, 1000),
+            getIntParameter(servletContext, PARAM_WINDOW, 300000));
+
+        servletContext.setAttribute(LOGIN_THROTTLE, loginThrottle);
+    }
+
+    public void contextDestroyed(ServletContextEvent event) {
+    }
+
+    /**
+     * Returns an integer context parameter or its default value
+     * @param servletContext
+     * @param name
+     * @param defaultValue
+     * @return value
+     */
+    private static int getIntParameter(ServletContext servletContext, String name, int defaultValue) {
+        String value = servletContext.getInitParameter(name);
+
+        if ((value == null) || (value.trim().length() == 0)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Le paramètre " + name + " doit être un nombre entier.", e);
+        }
+    }
+}
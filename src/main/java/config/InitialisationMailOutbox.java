@@ -0,0 +1,29 @@
+package config;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import utilities.MailConfigurationException;
+import utilities.MailOutbox;
+
+@WebListener
+public class InitialisationMailOutbox implements ServletContextListener {
+
+    public InitialisationMailOutbox() {
+    }
+
+    public void contextInitialized(ServletContextEvent event) {
+        // Sends the mails left in the outbox by the previous run
+        try {
+            MailOutbox.getInstance();
+        }
+        catch (MailConfigurationException e) {
+            System.out.println("Envoi des mails indisponible : " + e.getMessage());
+        }
+    }
+
+    public void contextDestroyed(ServletContextEvent event) {
+        MailOutbox.shutdownInstance();
+    }
+}
@@ -0,0 +1,23 @@
+package config;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import utilities.PasswordHasher;
+
+@WebListener
+public class InitialisationPasswordHasher implements ServletContextListener {
+
+    public InitialisationPasswordHasher() {
+    }
+
+    public void contextInitialized(ServletContextEvent event) {
+        // Starts the pool before the first login rather than during it
+        PasswordHasher.getInstance();
+    }
+
+    public void contextDestroyed(ServletContextEvent event) {
+        PasswordHasher.shutdownInstance();
+    }
+}
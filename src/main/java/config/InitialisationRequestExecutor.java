@@ -0,0 +1,58 @@
+package config;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+@WebListener
+public class InitialisationRequestExecutor implements ServletContextListener {
+    private static final String REQUEST_EXECUTOR  = "requestexecutor";
+    private static final String PARAM_THREADS     = "requestExecutor.threads";
+    private static final String PARAM_QUEUE_SIZE  = "requestExecutor.queueSize";
+    private static final String PARAM_TIMEOUT     = "requestExecutor.timeout";
+    private static final String PARAM_RETRY_AFTER = "requestExecutor.retryAfter";
+    private RequestExecutor requestExecutor;
+
+    public InitialisationRequestExecutor() {
+    }
+
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext servletContext = event.getServletContext();
+
+        this.requestExecutor = new RequestExecutor(
+            getIntParameter(servletContext, PARAM_THREADS, 16),
+            getIntParameter(servletContext, PARAM_QUEUE_SIZE, 64),
+            getIntParameter(servletContext, PARAM_TIMEOUT, 30000),
+            getIntParameter(servletContext, PARAM_RETRY_AFTER, 5));
+        servletContext.setAttribute(REQUEST_EXECUTOR, this.requestExecutor);
+    }
+
+    public void contextDestroyed(ServletContextEvent event) {
+        if (this.requestExecutor != null) {
+            this.requestExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Returns an integer context parameter or its default value
+     * @param servletContext
+     * @param name
+     * @param defaultValue
+     * @return value
+     */
+    private static int getIntParameter(ServletContext servletContext, String name, int defaultValue) {
+        String value = servletContext.getInitParameter(name);
+
+        if ((value == null) || (value.trim().length() == 0)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Le paramètre " + name + " doit être un nombre entier.", e);
+        }
+    }
+}
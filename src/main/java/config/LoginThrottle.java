@@ -0,0 +1,157 @@
+package config;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoginThrottle {
+    private static final int                 SWEEP_INTERVAL = 1024;
+    private final int                        maxFailuresPerEmail;
+    private final int                        maxFailuresPerAddress;
+    private final long                       window;
+    private final Map<String, FailureWindow> emailFailures   = new ConcurrentHashMap<String, FailureWindow>();
+    private final Map<String, FailureWindow> addressFailures = new ConcurrentHashMap<String, FailureWindow>();
+    private final AtomicLong                 acceptedCount   = new AtomicLong();
+    private final AtomicLong                 rejectedCount   = new AtomicLong();
+    private final AtomicLong                 throttledCount  = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param maxFailuresPerEmail failed logins of an email address allowed in the window
+     * @param maxFailuresPerAddress failed logins of an IP address allowed in the window
+     * @param window in milliseconds
+     */
+    LoginThrottle(int maxFailuresPerEmail, int maxFailuresPerAddress, long window) {
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        this.window = window;
+    }
+
+    /**
+     * Returns true if the email or IP address failed too many times in the window, the login is then refused without checking it
+     * @param emailAddress
+     * @param address
+     * @return throttled
+     */
+    public boolean isThrottled(String emailAddress, String address) {
+        long now = System.currentTimeMillis();
+
+        if ((count(emailFailures, emailAddress, now) >= maxFailuresPerEmail) || (count(addressFailures, address, now) >= maxFailuresPerAddress)) {
+            throttledCount.incrementAndGet();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Records a successful login, the failures of the email address are forgotten
+     * @param emailAddress
+     */
+    public void recordSuccess(String emailAddress) {
+        acceptedCount.incrementAndGet();
+
+        if (emailAddress != null) {
+            emailFailures.remove(emailAddress);
+        }
+    }
+
+    /**
+     * Records a failed login of an email and an IP address
+     * @param emailAddress
+     * @param address
+     */
+    public void recordFailure(String emailAddress, String address) {
+        long now = System.currentTimeMillis();
+
+        add(emailFailures, emailAddress, now, maxFailuresPerEmail);
+        add(addressFailures, address, now, maxFailuresPerAddress);
+
+        if (rejectedCount.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep(emailFailures, now);
+            sweep(addressFailures, now);
+        }
+    }
+
+    /**
+     * Returns the number of failures of a key in the window
+     * @param failures
+     * @param key
+     * @param now
+     * @return count
+     */
+    private int count(Map<String, FailureWindow> failures, String key, long now) {
+        FailureWindow failureWindow = (key == null) ? null : failures.get(key);
+
+        return (failureWindow == null) ? 0 : failureWindow.count(now - window);
+    }
+
+    /**
+     * Adds a failure to the window of a key
+     * @param failures
+     * @param key
+     * @param now
+     * @param max
+     */
+    private void add(Map<String, FailureWindow> failures, String key, long now, int max) {
+        if (key != null) {
+            failures.computeIfAbsent(key, k -> new FailureWindow()).add(now, now - window, max);
+        }
+    }
+
+    /**
+     * Forgets the keys without failure in the window
+     * @param failures
+     * @param now
+     */
+    private void sweep(Map<String, FailureWindow> failures, long now) {
+        failures.entrySet().removeIf(entry -> entry.getValue().count(now - window) == 0);
+    }
+
+    /**
+     * Returns the number of seconds after which a throttled client may try again
+     * @return seconds
+     */
+    public long getRetryAfter() {
+        return (window + 999) / 1000;
+    }
+
+    /**
+     * Returns throttle statistics
+     * @return statistics
+     */
+    public String toString() {
+        return "LoginThrottle[accepted=" + acceptedCount.get() + ", rejected=" + rejectedCount.get() + ", throttled=" + throttledCount.get()
+            + ", emails=" + emailFailures.size() + ", addresses=" + addressFailures.size() + "]";
+    }
+
+    /**
+     * Times of the recent failures of a key, oldest first
+     */
+    private static class FailureWindow {
+        private final ArrayDeque<Long> failures = new ArrayDeque<Long>();
+
+        synchronized int count(long since) {
+            prune(since);
+
+            return failures.size();
+        }
+
+        synchronized void add(long now, long since, int max) {
+            prune(since);
+            failures.addLast(now);
+
+            // Only the last failures matter to know if the key is throttled
+            while (failures.size() > max) {
+                failures.removeFirst();
+            }
+        }
+
+        private void prune(long since) {
+            while (!failures.isEmpty() && (failures.peekFirst() <= since)) {
+                failures.removeFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package config;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class RequestExecutor {
+    private final ThreadPoolExecutor executor;
+    private final long               timeout;
+    private final int                retryAfter;
+    private final AtomicLong         rejectedCount = new AtomicLong();
+    private final AtomicLong         timeoutCount  = new AtomicLong();
+    private final AtomicLong         errorCount    = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param threads max number of requests processed at the same time
+     * @param queueSize max number of requests waiting for a thread
+     * @param timeout in milliseconds
+     * @param retryAfter in seconds, sent with the 503 responses
+     */
+    RequestExecutor(int threads, int queueSize, long timeout, int retryAfter) {
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize), createThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs a task in the executor on a copy of the request, then lets the responder fill the request and dispatches it to its view,
+     * answers 503 when the executor is full or the task runs out of time
+     * @param request must be handled by a servlet with asyncSupported
+     * @param response
+     * @param task
+     * @param responder
+     * @throws IOException
+     * @throws ServletException
+     */
+    public <T> void execute(HttpServletRequest request, HttpServletResponse response, RequestTask<T> task, RequestResponder<T> responder) throws IOException, ServletException {
+        HttpServletRequest detached     = DetachedRequest.of(request);
+        AsyncContext       asyncContext = request.startAsync(request, response);
+        Exchange           exchange     = new Exchange(asyncContext);
+
+        asyncContext.setTimeout(timeout);
+        asyncContext.addListener(new TimeoutListener(exchange));
+
+        try {
+            exchange.setFuture(executor.submit(() -> run(exchange, detached, task, responder)));
+        }
+        catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+
+            synchronized (exchange) {
+                exchange.done = true;
+                response.setHeader("Retry-After", String.valueOf(retryAfter));
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Runs a task then, unless the request already timed out, hands its result to the responder and dispatches or completes the request
+     * @param exchange
+     * @param detached
+     * @param task
+     * @param responder
+     */
+    private <T> void run(Exchange exchange, HttpServletRequest detached, RequestTask<T> task, RequestResponder<T> responder) {
+        T      result;
+        String view;
+
+        try {
+            result = task.run(detached);
+        }
+        catch (Exception e) {
+            fail(exchange, e);
+            return;
+        }
+
+        // The listener takes the same lock, the request is never touched once it answered the timeout
+        synchronized (exchange) {
+            if (exchange.done) {
+                return;
+            }
+
+            try {
+                view = responder.respond(result);
+            }
+            catch (Exception e) {
+                fail(exchange, e);
+                return;
+            }
+
+            exchange.done = true;
+
+            if (view != null) {
+                exchange.asyncContext.dispatch(view);
+            }
+            else {
+                exchange.asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Answers 500 to a request whose task failed, unless it already timed out
+     * @param exchange
+     * @param e
+     */
+    private void fail(Exchange exchange, Exception e) {
+        errorCount.incrementAndGet();
+        System.out.println("Échec du traitement de la requête : " + e.getMessage());
+
+        synchronized (exchange) {
+            if (!exchange.done) {
+                exchange.done = true;
+                sendError(exchange.asyncContext, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                exchange.asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Sends an error status if the response is not committed yet
+     * @param asyncContext
+     * @param status
+     */
+    private static void sendError(AsyncContext asyncContext, int status) {
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+        try {
+            if (!response.isCommitted()) {
+                response.sendError(status);
+            }
+        }
+        catch (IOException e) {
+            System.out.println("Échec de l'envoi de l'erreur " + status + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a factory of virtual threads when the JVM has them, of daemon platform threads otherwise
+     * @return threadFactory
+     */
+    private static ThreadFactory createThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder   = ofVirtual.invoke(null);
+
+            builder = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class).invoke(builder, "request-", 0L);
+
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        }
+        catch (ReflectiveOperationException e) {
+            ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+            AtomicInteger number         = new AtomicInteger();
+
+            return runnable -> {
+                Thread thread = defaultFactory.newThread(runnable);
+                thread.setName("request-" + number.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Stops taking requests and waits for the running ones
+     */
+    void shutdown() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns executor statistics
+     * @return statistics
+     */
+    public String toString() {
+        return "RequestExecutor[active=" + executor.getActiveCount() + "/" + executor.getMaximumPoolSize() + ", queued=" + executor.getQueue().size()
+            + ", completed=" + executor.getCompletedTaskCount() + ", rejected=" + rejectedCount.get() + ", timeouts=" + timeoutCount.get() + ", errors=" + errorCount.get() + "]";
+    }
+
+    /**
+     * State of a request shared by its task and its listener, guarded by the exchange itself
+     */
+    private static class Exchange {
+        private final AsyncContext asyncContext;
+        private boolean            done = false;
+        private Future<?>          future;
+
+        Exchange(AsyncContext asyncContext) {
+            this.asyncContext = asyncContext;
+        }
+
+        /**
+         * Keeps the future of the task, cancelled at once if the request already ended
+         * @param future
+         */
+        synchronized void setFuture(Future<?> future) {
+            this.future = future;
+
+            if (done) {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * Ends the request for the task, a task still waiting will not run and a running one is interrupted
+         */
+        synchronized void cancel() {
+            done = true;
+
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Answers 503 to the requests which ran out of time
+     */
+    private class TimeoutListener implements AsyncListener {
+        private final Exchange exchange;
+
+        TimeoutListener(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        public void onTimeout(AsyncEvent event) throws IOException {
+            synchronized (exchange) {
+                if (!exchange.done) {
+                    exchange.cancel();
+                    timeoutCount.incrementAndGet();
+                    ((HttpServletResponse) event.getSuppliedResponse()).setHeader("Retry-After", String.valueOf(retryAfter));
+                    sendError(event.getAsyncContext(), HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    event.getAsyncContext().complete();
+                }
+            }
+        }
+
+        public void onComplete(AsyncEvent event) throws IOException {
+        }
+
+        public void onError(AsyncEvent event) throws IOException {
+            exchange.cancel();
+        }
+
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package config;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+
+public interface RequestResponder<T> {
+    /**
+     * Writes the result of a task into the request or the response, only called while the request has not timed out
+     * @param result
+     * @return view to dispatch to, null when the response has already been sent (redirect)
+     * @throws ServletException
+     * @throws IOException
+     */
+    String respond(T result) throws ServletException, IOException;
+}
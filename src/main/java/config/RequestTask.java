@@ -0,0 +1,17 @@
+package config;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+public interface RequestTask<T> {
+    /**
+     * Does the work of a request outside the container thread, it must not touch the original request nor the response
+     * @param request copy of the parameters, session attributes and uploaded parts of the request
+     * @return result handed to the responder
+     * @throws ServletException
+     * @throws IOException
+     */
+    T run(HttpServletRequest request) throws ServletException, IOException;
+}
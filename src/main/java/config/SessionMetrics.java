@@ -0,0 +1,221 @@
+package config;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpSessionAttributeListener;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+@WebListener
+public class SessionMetrics implements ServletContextListener, HttpSessionListener, HttpSessionAttributeListener {
+    private static final String SESSION_METRICS   = "sessionmetrics";
+    private static final int    SAMPLE_RATE       = 100;
+    private final AtomicLong    activeSessions    = new AtomicLong();
+    private final AtomicLong    maxSessions       = new AtomicLong();
+    private final AtomicLong    createdSessions   = new AtomicLong();
+    private final AtomicLong    attributes        = new AtomicLong();
+    private final AtomicLong    writes            = new AtomicLong();
+    private final AtomicLong    samples           = new AtomicLong();
+    private final AtomicLong    sampledBytes      = new AtomicLong();
+    private final AtomicLong    maxAttributeBytes = new AtomicLong();
+    private final Set<String>   unserializable    = ConcurrentHashMap.newKeySet();
+
+    public SessionMetrics() {
+    }
+
+    public void contextInitialized(ServletContextEvent event) {
+        event.getServletContext().setAttribute(SESSION_METRICS, this);
+    }
+
+    public void contextDestroyed(ServletContextEvent event) {
+    }
+
+    public void sessionCreated(HttpSessionEvent event) {
+        createdSessions.incrementAndGet();
+        maxSessions.accumulateAndGet(activeSessions.incrementAndGet(), Math::max);
+    }
+
+    public void sessionDestroyed(HttpSessionEvent event) {
+        activeSessions.decrementAndGet();
+    }
+
+    public void attributeAdded(HttpSessionBindingEvent event) {
+        attributes.incrementAndGet();
+
+        if (!(event.getValue() instanceof Serializable)) {
+            unserializable.add(event.getName());
+        }
+
+        if (isSampled()) {
+            measure(event.getName(), event.getValue());
+        }
+    }
+
+    public void attributeRemoved(HttpSessionBindingEvent event) {
+        attributes.decrementAndGet();
+    }
+
+    public void attributeReplaced(HttpSessionBindingEvent event) {
+        // The event holds the old value, the new one is read from the session only when sampled
+        if (isSampled()) {
+            measure(event.getName(), event.getSession().getAttribute(event.getName()));
+        }
+    }
+
+    /**
+     * Tells whether the current attribute write is measured, one out of SAMPLE_RATE since serializing every write
+     * (the JSF view state included) would cost more than the requests themselves
+     * @return sampled
+     */
+    private boolean isSampled() {
+        return writes.incrementAndGet() % SAMPLE_RATE == 0;
+    }
+
+    /**
+     * Adds the number of bytes a session attribute takes once serialized to the samples, an attribute which
+     * cannot be replicated is recorded by name
+     * @param name
+     * @param value
+     */
+    private void measure(String name, Object value) {
+        CountingStream counter = new CountingStream();
+
+        if (!(value instanceof Serializable)) {
+            unserializable.add(name);
+            return;
+        }
+
+        try (ObjectOutputStream output = new ObjectOutputStream(counter)) {
+            output.writeObject(value);
+        }
+        catch (IOException e) {
+            unserializable.add(name);
+            return;
+        }
+
+        samples.incrementAndGet();
+        sampledBytes.addAndGet(counter.count);
+        maxAttributeBytes.accumulateAndGet(counter.count, Math::max);
+    }
+
+    /**
+     * Returns the number of live sessions
+     * @return activeSessions
+     */
+    public long getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Returns the highest number of live sessions since startup
+     * @return maxSessions
+     */
+    public long getMaxSessions() {
+        return maxSessions.get();
+    }
+
+    /**
+     * Returns the number of sessions created since startup
+     * @return createdSessions
+     */
+    public long getCreatedSessions() {
+        return createdSessions.get();
+    }
+
+    /**
+     * Returns the number of attributes held by the live sessions
+     * @return attributes
+     */
+    public long getAttributeCount() {
+        return attributes.get();
+    }
+
+    /**
+     * Returns the number of attribute writes measured
+     * @return samples
+     */
+    public long getSampleCount() {
+        return samples.get();
+    }
+
+    /**
+     * Returns the average serialized size of the sampled attributes
+     * @return bytes
+     */
+    public long getAverageAttributeBytes() {
+        long sampled = samples.get();
+
+        return (sampled <= 0) ? 0 : sampledBytes.get() / sampled;
+    }
+
+    /**
+     * Returns the serialized size of all the live sessions, estimated from the sampled attributes
+     * @return bytes
+     */
+    public long getEstimatedBytes() {
+        return getAverageAttributeBytes() * attributes.get();
+    }
+
+    /**
+     * Returns the estimated serialized size of a session
+     * @return bytes
+     */
+    public long getAverageSessionBytes() {
+        long active = activeSessions.get();
+
+        return (active <= 0) ? 0 : getEstimatedBytes() / active;
+    }
+
+    /**
+     * Returns the largest sampled attribute size
+     * @return bytes
+     */
+    public long getMaxAttributeBytes() {
+        return maxAttributeBytes.get();
+    }
+
+    /**
+     * Returns the names of the attributes which cannot be replicated
+     * @return names
+     */
+    public Set<String> getUnserializableAttributes() {
+        return Collections.unmodifiableSet(unserializable);
+    }
+
+    /**
+     * Returns session statistics, the sizes are estimated from the sampled attributes
+     * @return statistics
+     */
+    public String toString() {
+        return "SessionMetrics[active=" + getActiveSessions() + ", max=" + getMaxSessions() + ", created=" + getCreatedSessions()
+            + ", attributes=" + getAttributeCount() + ", samples=" + getSampleCount() + ", avgAttributeBytes=" + getAverageAttributeBytes()
+            + ", estimatedBytes=" + getEstimatedBytes() + ", avgBytes=" + getAverageSessionBytes()
+            + ", maxAttributeBytes=" + getMaxAttributeBytes() + ", unserializable=" + unserializable + "]";
+    }
+
+    /**
+     * Stream counting the bytes written to it without keeping them
+     */
+    private static class CountingStream extends OutputStream {
+        private long count = 0;
+
+        public void write(int b) {
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
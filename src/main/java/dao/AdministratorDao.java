@@ -46,11 +46,4 @@ public interface AdministratorDao {
      */
     void delete(Administrator administrator) throws DAOException;
 
-    /**
-     * Checks administrator login into database
-     * @param administrator
-     * @throws DAOException
-     */
-    Administrator checkLogin(Administrator administrator) throws DAOException;
-
 }
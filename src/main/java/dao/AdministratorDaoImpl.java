@@ -1,12 +1,12 @@
 package dao;
 
 import static dao.DAOUtility.silentClosures;
+import static dao.QueryExecutor.prepare;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 import java.util.TreeSet;
 import java.util.Set;
@@ -18,7 +18,6 @@ public class AdministratorDaoImpl implements AdministratorDao {
     private static final String SELECT_COUNT_BY_EMAIL = "SELECT COUNT(id) FROM gnw_utilisateur WHERE adresse_mail = ?";
     private static final String SELECT_ALL            = "SELECT id, nom, prenom, adresse_mail  FROM gnw_utilisateur WHERE profil = 2 AND date_suppr IS NULL";
     private static final String SELECT_BY_ID          = "SELECT id, nom, prenom, adresse_mail FROM gnw_utilisateur WHERE id = ? AND date_suppr IS NULL";
-    private static final String SELECT_LOGIN          = "SELECT id, nom, prenom, adresse_mail  FROM gnw_utilisateur WHERE profil = 2 AND date_suppr IS NULL AND adresse_mail = ? AND mot_de_passe = ?";
     private static final String INSERT_ADMIN          = "INSERT INTO gnw_utilisateur ( nom, prenom, adresse_mail, mot_de_passe, profil, fk_utilisateur) VALUES ( ?, ?, ?, ?, 2, ? )";
     private static final String UPDATE_ADMIN          = "UPDATE gnw_utilisateur SET nom = ?, prenom = ?, adresse_mail = ?, fk_utilisateur = ? WHERE id = ?";
     private static final String UPDATE_PASSWORD       = "UPDATE gnw_utilisateur SET mot_de_passe = ?, fk_utilisateur = ? WHERE id = ?";
@@ -44,7 +43,7 @@ public class AdministratorDaoImpl implements AdministratorDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, INSERT_ADMIN, true, administrator.getLastName(), administrator.getFirstName(), administrator.getEmailAddress(), administrator.getPassword(), creator.getId());
+            preparedStatement = prepare(connexion, INSERT_ADMIN, administrator.getLastName(), administrator.getFirstName(), administrator.getEmailAddress(), administrator.getPassword(), creator.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -66,43 +65,16 @@ public class AdministratorDaoImpl implements AdministratorDao {
         Connection         connexion         = null;
         PreparedStatement  preparedStatement = null;
         ResultSet          resultSet         = null;
-        String             SQLQuery          = SELECT_ALL;
+        SearchQuery        query             = new SearchQuery();
+
+        query.equal("gnw_utilisateur.id", administrator.getId())
+             .like("gnw_utilisateur.nom", administrator.getLastName())
+             .like("gnw_utilisateur.prenom", administrator.getFirstName())
+             .like("gnw_utilisateur.adresse_mail", administrator.getEmailAddress());
 
         try {
             connexion = daoFactory.getConnection();
-
-            if (administrator.getId() != null) {
-                SQLQuery += " AND gnw_utilisateur.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.id IS NOT ?";
-            }
-
-            if (administrator.getLastName() != null) {
-                SQLQuery += " AND gnw_utilisateur.nom LIKE ?";
-                administrator.setLastName("%" + administrator.getLastName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.nom IS NOT ?";
-            }
-
-            if (administrator.getFirstName() != null) {
-                SQLQuery += " AND gnw_utilisateur.prenom LIKE ?";
-                administrator.setFirstName("%" + administrator.getFirstName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.prenom IS NOT ?";
-            }
-
-            if (administrator.getEmailAddress() != null) {
-                SQLQuery += " AND gnw_utilisateur.adresse_mail LIKE ?";
-                administrator.setEmailAddress("%" + administrator.getEmailAddress() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.adresse_mail IS NOT ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, administrator.getId(), administrator.getLastName(), administrator.getFirstName(), administrator.getEmailAddress());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_ALL), query.getParameters());
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -146,7 +118,7 @@ public class AdministratorDaoImpl implements AdministratorDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_ADMIN, true, administrator.getLastName(), administrator.getFirstName(), administrator.getEmailAddress(), editor.getId(), administrator.getId());
+            preparedStatement = prepare(connexion, UPDATE_ADMIN, administrator.getLastName(), administrator.getFirstName(), administrator.getEmailAddress(), editor.getId(), administrator.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -155,6 +127,8 @@ public class AdministratorDaoImpl implements AdministratorDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
+
+        daoFactory.getLoginCache().clear();
     }
 
     /**
@@ -170,7 +144,7 @@ public class AdministratorDaoImpl implements AdministratorDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_PASSWORD, true, administrator.getPassword(), editor.getId(), administrator.getId());
+            preparedStatement = prepare(connexion, UPDATE_PASSWORD, administrator.getPassword(), editor.getId(), administrator.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -180,6 +154,7 @@ public class AdministratorDaoImpl implements AdministratorDao {
             silentClosures(preparedStatement, connexion);
         }
 
+        daoFactory.getLoginCache().clear();
     }
 
     /**
@@ -192,20 +167,14 @@ public class AdministratorDaoImpl implements AdministratorDao {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_COUNT_BY_EMAIL;
+        SearchQuery       query             = new SearchQuery(administrator.getEmailAddress());
         int               status            = 0;
 
+        query.notEqual("gnw_utilisateur.id", administrator.getId());
+
         try {
             connexion = daoFactory.getConnection();
-
-            if (administrator.getId() == null) {
-                SQLQuery += " AND gnw_utilisateur.id IS NOT ?";
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.id != ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, administrator.getEmailAddress(), administrator.getId());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_COUNT_BY_EMAIL), query.getParameters());
             resultSet = preparedStatement.executeQuery();
             resultSet.next();
             status = resultSet.getInt(1);
@@ -233,7 +202,7 @@ public class AdministratorDaoImpl implements AdministratorDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_BY_ID, true, administrator.getId());
+            preparedStatement = prepare(connexion, SELECT_BY_ID, administrator.getId());
             resultSet = preparedStatement.executeQuery();
 
             if (resultSet.next()) {
@@ -262,7 +231,7 @@ public class AdministratorDaoImpl implements AdministratorDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, DELETE_ADMIN, true, editor.getId(), administrator.getId());
+            preparedStatement = prepare(connexion, DELETE_ADMIN, editor.getId(), administrator.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -271,56 +240,8 @@ public class AdministratorDaoImpl implements AdministratorDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
-    }
-
-    /**
-     * Checks administrator login into database
-     * @param administrator
-     * @throws DAOException
-     */
-    public Administrator checkLogin(Administrator administrator) throws DAOException {
-        Administrator     administrator2    = new Administrator();
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet;
-
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_LOGIN, true, administrator.getEmailAddress(), administrator.getPassword());
-            resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                administrator2 = map(resultSet);
-                administrator2.setPassword(administrator.getPassword());
-            }
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
-
-        return administrator2;
-    }
-
-    /**
-     * Prepares a SQL query
-     * @param connexion
-     * @param sql
-     * @param returnGeneratedKeys
-     * @param objets
-     * @return preparedStatement
-     * @throws SQLException
-     */
-    public static PreparedStatement initPreparedQuery(Connection connexion, String sql, boolean returnGeneratedKeys, Object... objets) throws SQLException {
-        PreparedStatement preparedStatement = connexion.prepareStatement(sql, returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
-
-        for (int i = 0; i < objets.length; i++) {
-            preparedStatement.setObject(i + 1, objets[i]);
-        }
 
-        return preparedStatement;
+        daoFactory.getLoginCache().clear();
     }
 
     /**
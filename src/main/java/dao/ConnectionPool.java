@@ -0,0 +1,428 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool {
+    private static final long                          HOUSEKEEPING_PERIOD = 30000;
+    private static final long                          VALIDATION_INTERVAL = 5000;
+    private final String                               url;
+    private final String                               username;
+    private final String                               password;
+    private final int                                  minSize;
+    private final int                                  maxSize;
+    private final long                                 acquireTimeout;
+    private final String                               validationQuery;
+    private final long                                 idleTimeout;
+    private final long                                 maxLifetime;
+    private final long                                 leakDetectionThreshold;
+    private final int                                  statementCacheSize;
+    private final Semaphore                            permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections     = new LinkedBlockingDeque<PooledConnection>();
+    private final Set<PooledConnection>                borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger                        totalConnections    = new AtomicInteger();
+    private final AtomicLong                           createdCount        = new AtomicLong();
+    private final AtomicLong                           destroyedCount      = new AtomicLong();
+    private final AtomicLong                           acquireCount        = new AtomicLong();
+    private final AtomicLong                           acquireTime         = new AtomicLong();
+    private final AtomicLong                           timeoutCount        = new AtomicLong();
+    private final AtomicLong                           leakCount           = new AtomicLong();
+    private final AtomicLong                           statementHitCount   = new AtomicLong();
+    private final AtomicLong                           statementMissCount  = new AtomicLong();
+    private final ScheduledExecutorService             housekeeper;
+    private volatile boolean                           closed              = false;
+
+    /**
+     * Constructor
+     * @param url
+     * @param username
+     * @param password
+     * @param minSize
+     * @param maxSize
+     * @param acquireTimeout in milliseconds
+     * @param validationQuery
+     * @param idleTimeout in milliseconds
+     * @param maxLifetime in milliseconds
+     * @param leakDetectionThreshold in milliseconds, 0 disables leak detection
+     * @param statementCacheSize prepared statements kept open per connection, 0 disables the cache
+     */
+    ConnectionPool(String url, String username, String password, int minSize, int maxSize, long acquireTimeout, String validationQuery, long idleTimeout, long maxLifetime, long leakDetectionThreshold, int statementCacheSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeout = acquireTimeout;
+        this.validationQuery = validationQuery;
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "zpareo-connection-pool");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        this.housekeeper.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                housekeep();
+            }
+        }, 0, HOUSEKEEPING_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, waits at most acquireTimeout milliseconds for a free one
+     * @return connection
+     * @throws SQLException
+     */
+    Connection getConnection() throws SQLException {
+        long             start            = System.nanoTime();
+        PooledConnection pooledConnection = null;
+
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé.");
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Aucune connexion disponible après " + acquireTimeout + " ms (" + getActiveConnections() + " connexions actives).");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente d'une connexion interrompue.", e);
+        }
+
+        try {
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (isUsable(pooledConnection)) {
+                    break;
+                }
+
+                destroy(pooledConnection);
+            }
+
+            if (pooledConnection == null) {
+                pooledConnection = create();
+            }
+
+            borrowedConnections.add(pooledConnection);
+            acquireCount.incrementAndGet();
+            acquireTime.addAndGet(System.nanoTime() - start);
+
+            return pooledConnection.borrow(leakDetectionThreshold > 0 ? new Throwable("Connexion empruntée ici") : null);
+        }
+        catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+        catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool
+     * @param pooledConnection
+     */
+    void release(PooledConnection pooledConnection) {
+        if (!borrowedConnections.remove(pooledConnection)) {
+            return;
+        }
+
+        try {
+            if (closed || !pooledConnection.reset() || isExpired(pooledConnection)) {
+                destroy(pooledConnection);
+            }
+            else {
+                idleConnections.offerFirst(pooledConnection);
+            }
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes every connection of the pool and stops the housekeeping
+     */
+    public void close() {
+        PooledConnection pooledConnection;
+
+        closed = true;
+        housekeeper.shutdownNow();
+
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            destroy(pooledConnection);
+        }
+
+        for (PooledConnection borrowed : borrowedConnections) {
+            System.out.println("Connexion toujours empruntée à la fermeture du pool : " + borrowed.getConnection());
+        }
+    }
+
+    /**
+     * Opens a new physical connection
+     * @return pooledConnection
+     * @throws SQLException
+     */
+    private PooledConnection create() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+
+        return new PooledConnection(this, connection, statementCacheSize);
+    }
+
+    /**
+     * Closes a physical connection
+     * @param pooledConnection
+     */
+    private void destroy(PooledConnection pooledConnection) {
+        pooledConnection.destroy();
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+    }
+
+    /**
+     * Checks an idle connection before lending it
+     * @param pooledConnection
+     * @return true if the connection is still alive
+     */
+    private boolean isUsable(PooledConnection pooledConnection) {
+        Statement statement = null;
+
+        if (isExpired(pooledConnection)) {
+            return false;
+        }
+
+        if (System.currentTimeMillis() - pooledConnection.getLastUsedAt() < VALIDATION_INTERVAL) {
+            return true;
+        }
+
+        try {
+            if ((validationQuery == null) || validationQuery.isEmpty()) {
+                return pooledConnection.getConnection().isValid((int) TimeUnit.MILLISECONDS.toSeconds(acquireTimeout));
+            }
+
+            statement = pooledConnection.getConnection().createStatement();
+            statement.execute(validationQuery);
+
+            return true;
+        }
+        catch (SQLException e) {
+            return false;
+        }
+        finally {
+            DAOUtility.silentClosure(statement);
+        }
+    }
+
+    /**
+     * Returns true if the connection has exceeded its max lifetime
+     * @param pooledConnection
+     * @return expired
+     */
+    private boolean isExpired(PooledConnection pooledConnection) {
+        return (maxLifetime > 0) && (System.currentTimeMillis() - pooledConnection.getCreatedAt() > maxLifetime);
+    }
+
+    /**
+     * Evicts idle and expired connections, reports leaks and refills the pool up to its min size
+     */
+    private void housekeep() {
+        long                       now      = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+
+        while (iterator.hasNext()) {
+            PooledConnection pooledConnection = iterator.next();
+            boolean          idle             = (idleTimeout > 0) && (now - pooledConnection.getLastUsedAt() > idleTimeout) && (totalConnections.get() > minSize);
+
+            if ((idle || isExpired(pooledConnection)) && idleConnections.remove(pooledConnection)) {
+                destroy(pooledConnection);
+            }
+        }
+
+        if (leakDetectionThreshold > 0) {
+            for (PooledConnection pooledConnection : borrowedConnections) {
+                if (!pooledConnection.isLeakReported() && (now - pooledConnection.getBorrowedAt() > leakDetectionThreshold)) {
+                    Throwable trace = pooledConnection.getBorrowTrace();
+
+                    pooledConnection.setLeakReported(true);
+                    leakCount.incrementAndGet();
+                    System.out.println("Fuite de connexion probable, empruntée depuis plus de " + leakDetectionThreshold + " ms.");
+
+                    if (trace != null) {
+                        trace.printStackTrace(System.out);
+                    }
+                }
+            }
+        }
+
+        // Each refill holds a permit like a borrower, so the physical connections never exceed maxSize
+        while (!closed && (totalConnections.get() < minSize) && permits.tryAcquire()) {
+            try {
+                idleConnections.offerLast(create());
+            }
+            catch (SQLException e) {
+                System.out.println("Échec de l'ouverture d'une connexion : " + e.getMessage());
+                break;
+            }
+            finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Counts a prepared statement served by a connection cache
+     */
+    void statementCacheHit() {
+        statementHitCount.incrementAndGet();
+    }
+
+    /**
+     * Counts a prepared statement parsed by the driver
+     */
+    void statementCacheMiss() {
+        statementMissCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the max size of the pool
+     * @return maxSize
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of open physical connections
+     * @return totalConnections
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * Returns the number of idle connections
+     * @return idleConnections
+     */
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Returns the number of borrowed connections
+     * @return activeConnections
+     */
+    public int getActiveConnections() {
+        return borrowedConnections.size();
+    }
+
+    /**
+     * Returns the number of threads waiting for a connection
+     * @return waitingThreads
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Returns the number of physical connections opened since startup
+     * @return createdCount
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns the number of physical connections closed since startup
+     * @return destroyedCount
+     */
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    /**
+     * Returns the number of borrows since startup
+     * @return acquireCount
+     */
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * Returns the average time to borrow a connection in milliseconds
+     * @return averageAcquireTime
+     */
+    public double getAverageAcquireTime() {
+        long count = acquireCount.get();
+
+        return (count == 0) ? 0 : (acquireTime.get() / 1000000.0) / count;
+    }
+
+    /**
+     * Returns the number of borrows which timed out
+     * @return timeoutCount
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Returns the number of leaks detected
+     * @return leakCount
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * Returns the number of prepared statements served by the connection caches
+     * @return statementHitCount
+     */
+    public long getStatementHitCount() {
+        return statementHitCount.get();
+    }
+
+    /**
+     * Returns the number of prepared statements parsed by the driver
+     * @return statementMissCount
+     */
+    public long getStatementMissCount() {
+        return statementMissCount.get();
+    }
+
+    /**
+     * Returns pool statistics
+     * @return statistics
+     */
+    public String toString() {
+        return "ConnectionPool[total=" + getTotalConnections() + ", active=" + getActiveConnections() + ", idle=" + getIdleConnections()
+            + ", waiting=" + getWaitingThreads() + ", created=" + getCreatedCount() + ", destroyed=" + getDestroyedCount()
+            + ", acquired=" + getAcquireCount() + ", avgAcquireMs=" + String.format("%.3f", getAverageAcquireTime())
+            + ", timeouts=" + getTimeoutCount() + ", leaks=" + getLeakCount()
+            + ", statementHits=" + getStatementHitCount() + ", statementMisses=" + getStatementMissCount() + "]";
+    }
+}
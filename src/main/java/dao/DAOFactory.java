@@ -3,41 +3,94 @@ package dao;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import beans.Gradebook;
+import beans.Group;
+import beans.Subject;
+import beans.Teacher;
+import beans.TestFormat;
+import beans.User;
 
 public class DAOFactory {
-    private static final String PROPERTIES_FILE   = "dao/dao.properties";
-    private static final String PROPERTY_URL      = "url";
-    private static final String PROPERTY_DRIVER   = "driver";
-    private static final String PROPERTY_USERNAME = "username";
-    private static final String PROPERTY_PASSWORD = "password";
-    private String url;
-    private String username;
-    private String password;
+    private static final String PROPERTIES_FILE                = "dao/dao.properties";
+    private static final String PROPERTY_URL                   = "url";
+    private static final String PROPERTY_DRIVER                = "driver";
+    private static final String PROPERTY_USERNAME              = "username";
+    private static final String PROPERTY_PASSWORD              = "password";
+    private static final String PROPERTY_POOL_MIN_SIZE         = "pool.minSize";
+    private static final String PROPERTY_POOL_MAX_SIZE         = "pool.maxSize";
+    private static final String PROPERTY_POOL_ACQUIRE_TIMEOUT  = "pool.acquireTimeout";
+    private static final String PROPERTY_POOL_VALIDATION_QUERY = "pool.validationQuery";
+    private static final String PROPERTY_POOL_IDLE_TIMEOUT     = "pool.idleTimeout";
+    private static final String PROPERTY_POOL_MAX_LIFETIME     = "pool.maxLifetime";
+    private static final String PROPERTY_POOL_LEAK_DETECTION   = "pool.leakDetectionThreshold";
+    private static final String PROPERTY_POOL_STATEMENT_CACHE  = "pool.statementCacheSize";
+    private static final String PROPERTY_CACHE_MAX_SIZE        = "cache.maxSize";
+    private static final String PROPERTY_CACHE_TIME_TO_LIVE    = "cache.timeToLive";
+    private static final String PROPERTY_GRADEBOOK_CACHE_SIZE  = "cache.gradebook.maxSize";
+    private static final String PROPERTY_LOGIN_CACHE_SIZE      = "cache.login.maxSize";
+    private static final String PROPERTY_LOGIN_CACHE_TTL       = "cache.login.timeToLive";
+    private static final String PROPERTY_MIGRATIONS_ENABLED    = "migrations.enabled";
+    private static final String PROPERTY_GRADEBOOK_PARALLELISM = "gradebook.parallelism";
+    private static final String PROPERTY_LINK_RETENTION_DAYS   = "links.retentionDays";
+    private static final String PROPERTY_REPAIR_INTERVAL_HOURS = "statistics.repairIntervalHours";
+    private ConnectionPool             connectionPool;
+    private LRUCache<Long, Subject>    subjectCache;
+    private LRUCache<Long, Group>      groupCache;
+    private LRUCache<Long, TestFormat> testFormatCache;
+    private LRUCache<Long, Gradebook>  gradebookCache;
+    private LRUCache<String, User>     loginCache;
+    private LRUCache<Long, Teacher>    teacherCache;
+    private ExecutorService            gradebookExecutor;
+    private ScheduledExecutorService   maintenanceExecutor;
 
     /**
      * Constructor
-     * @param url
-     * @param username
-     * @param password
+     * @param connectionPool
+     * @param cacheMaxSize
+     * @param cacheTimeToLive in milliseconds
+     * @param gradebookCacheMaxSize
+     * @param gradebookParallelism max number of subjects of all gradebooks loaded at the same time, 1 loads each gradebook in one query
+     * @param loginCacheMaxSize
+     * @param loginCacheTimeToLive in milliseconds
      */
-    DAOFactory(String url, String username, String password) {
-        this.url = url;
-        this.username = username;
-        this.password = password;
+    DAOFactory(ConnectionPool connectionPool, int cacheMaxSize, long cacheTimeToLive, int gradebookCacheMaxSize, int gradebookParallelism, int loginCacheMaxSize, long loginCacheTimeToLive) {
+        this.connectionPool = connectionPool;
+        this.subjectCache = new LRUCache<Long, Subject>("subjects", cacheMaxSize, cacheTimeToLive);
+        this.groupCache = new LRUCache<Long, Group>("groups", cacheMaxSize, cacheTimeToLive);
+        this.testFormatCache = new LRUCache<Long, TestFormat>("testFormats", cacheMaxSize, cacheTimeToLive);
+        this.gradebookCache = new LRUCache<Long, Gradebook>("gradebooks", gradebookCacheMaxSize, cacheTimeToLive);
+        this.loginCache = new LRUCache<String, User>("logins", loginCacheMaxSize, loginCacheTimeToLive);
+        this.teacherCache = new LRUCache<Long, Teacher>("teachers", cacheMaxSize, cacheTimeToLive);
+
+        if (gradebookParallelism > 1) {
+            AtomicInteger number = new AtomicInteger();
+
+            this.gradebookExecutor = Executors.newFixedThreadPool(gradebookParallelism, runnable -> {
+                Thread thread = new Thread(runnable, "gradebook-" + number.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     /**
-     * Method in chage of get connexion to the database, charge the driver and returns an daoFactory instance
+     * Method in chage of get connexion to the database, charge the driver and returns an daoFactory instance, pending schema migrations are applied first
      * @return instance
      */
     public static DAOFactory getInstance() throws DAOConfigurationException {
-        String      url;
-        String      driver;
-        String      username;
-        String      password;
+        String         url;
+        String         driver;
+        String         username;
+        String         password;
+        ConnectionPool connectionPool;
         Properties  properties     = new Properties();
         ClassLoader classLoader    = Thread.currentThread().getContextClassLoader();
         InputStream propertiesFile = classLoader.getResourceAsStream(PROPERTIES_FILE);
@@ -64,18 +117,207 @@ public class DAOFactory {
             throw new DAOConfigurationException("Le driver est introuvable dans le classpath.", e);
         }
 
-        DAOFactory instance = new DAOFactory(url, username, password);
+        connectionPool = new ConnectionPool(url, username, password,
+            getIntProperty(properties, PROPERTY_POOL_MIN_SIZE, 2),
+            getIntProperty(properties, PROPERTY_POOL_MAX_SIZE, 20),
+            getLongProperty(properties, PROPERTY_POOL_ACQUIRE_TIMEOUT, 5000),
+            properties.getProperty(PROPERTY_POOL_VALIDATION_QUERY, "SELECT 1").trim(),
+            getLongProperty(properties, PROPERTY_POOL_IDLE_TIMEOUT, 600000),
+            getLongProperty(properties, PROPERTY_POOL_MAX_LIFETIME, 1800000),
+            getLongProperty(properties, PROPERTY_POOL_LEAK_DETECTION, 0),
+            getIntProperty(properties, PROPERTY_POOL_STATEMENT_CACHE, 50));
+
+        DAOFactory instance = new DAOFactory(connectionPool,
+            getIntProperty(properties, PROPERTY_CACHE_MAX_SIZE, 500),
+            getLongProperty(properties, PROPERTY_CACHE_TIME_TO_LIVE, 600000),
+            getIntProperty(properties, PROPERTY_GRADEBOOK_CACHE_SIZE, 2000),
+            getIntProperty(properties, PROPERTY_GRADEBOOK_PARALLELISM, 1),
+            getIntProperty(properties, PROPERTY_LOGIN_CACHE_SIZE, 5000),
+            getLongProperty(properties, PROPERTY_LOGIN_CACHE_TTL, 60000));
+
+        if (!"false".equalsIgnoreCase(properties.getProperty(PROPERTY_MIGRATIONS_ENABLED, "true").trim())) {
+            try {
+                new SchemaMigrator(instance).migrate();
+            }
+            catch (DAOException e) {
+                instance.close();
+                throw e;
+            }
+        }
+
+        instance.scheduleMaintenance(getIntProperty(properties, PROPERTY_LINK_RETENTION_DAYS, 30),
+            getIntProperty(properties, PROPERTY_REPAIR_INTERVAL_HOURS, 24));
 
         return instance;
     }
 
     /**
-     * Returns an instance of DriverManager
-     * @return
+     * Returns the connection of the unit of work of the current thread, or a pooled connection which goes back to the pool once closed
+     * @return connection
      * @throws SQLException
      */
     Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
+        Connection connexion = UnitOfWork.current();
+
+        return (connexion != null) ? connexion : connectionPool.getConnection();
+    }
+
+    /**
+     * Returns the connection pool
+     * @return connectionPool
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Returns the subject cache
+     * @return subjectCache
+     */
+    public LRUCache<Long, Subject> getSubjectCache() {
+        return subjectCache;
+    }
+
+    /**
+     * Returns the group cache
+     * @return groupCache
+     */
+    public LRUCache<Long, Group> getGroupCache() {
+        return groupCache;
+    }
+
+    /**
+     * Returns the test format cache
+     * @return testFormatCache
+     */
+    public LRUCache<Long, TestFormat> getTestFormatCache() {
+        return testFormatCache;
+    }
+
+    /**
+     * Returns the student gradebook cache
+     * @return gradebookCache
+     */
+    public LRUCache<Long, Gradebook> getGradebookCache() {
+        return gradebookCache;
+    }
+
+    /**
+     * Returns the cache of the recent logins by email address, the users keep the hash of their password
+     * @return loginCache
+     */
+    public LRUCache<String, User> getLoginCache() {
+        return loginCache;
+    }
+
+    /**
+     * Returns the cache of the teachers with their groups and subjects
+     * @return teacherCache
+     */
+    public LRUCache<Long, Teacher> getTeacherCache() {
+        return teacherCache;
+    }
+
+    /**
+     * Returns the executor loading the subjects of a gradebook in parallel, null when they are loaded in one query
+     * @return gradebookExecutor
+     */
+    ExecutorService getGradebookExecutor() {
+        return gradebookExecutor;
+    }
+
+    /**
+     * Returns the executor of the background maintenance tasks
+     * @return maintenanceExecutor
+     */
+    ScheduledExecutorService getMaintenanceExecutor() {
+        return maintenanceExecutor;
+    }
+
+    /**
+     * Purges once a day the teacher links retired for longer than the retention, 0 keeps them forever,
+     * and recomputes the test statistics and subject averages at the given interval, 0 disables it
+     * @param retentionDays
+     * @param repairIntervalHours
+     */
+    private void scheduleMaintenance(int retentionDays, int repairIntervalHours) {
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (retentionDays > 0) {
+            maintenanceExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    getTeacherDao().purgeRetiredLinks(retentionDays);
+                }
+                catch (DAOException e) {
+                    System.out.println("Échec de la purge des liens de professeurs : " + e.getMessage());
+                }
+            }, 1, 24, TimeUnit.HOURS);
+        }
+
+        if (repairIntervalHours > 0) {
+            maintenanceExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    getTestDao().repairStatistics();
+                }
+                catch (DAOException e) {
+                    System.out.println("Échec du recalcul des statistiques d'examens : " + e.getMessage());
+                }
+            }, repairIntervalHours, repairIntervalHours, TimeUnit.HOURS);
+        }
+    }
+
+    /**
+     * Releases the resources held by the factory
+     */
+    public void close() {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+
+        if (gradebookExecutor != null) {
+            gradebookExecutor.shutdownNow();
+        }
+
+        connectionPool.close();
+    }
+
+    /**
+     * Returns an integer property or its default value
+     * @param properties
+     * @param name
+     * @param defaultValue
+     * @return value
+     * @throws DAOConfigurationException
+     */
+    private static int getIntProperty(Properties properties, String name, int defaultValue) throws DAOConfigurationException {
+        return (int) getLongProperty(properties, name, defaultValue);
+    }
+
+    /**
+     * Returns a long property or its default value
+     * @param properties
+     * @param name
+     * @param defaultValue
+     * @return value
+     * @throws DAOConfigurationException
+     */
+    private static long getLongProperty(Properties properties, String name, long defaultValue) throws DAOConfigurationException {
+        String value = properties.getProperty(name);
+
+        if ((value == null) || (value.trim().length() == 0)) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new DAOConfigurationException("La propriété " + name + " du fichier " + PROPERTIES_FILE + " doit être un nombre entier.", e);
+        }
     }
 
     /**
@@ -118,6 +360,14 @@ public class DAOFactory {
         return new AdministratorDaoImpl(this);
     }
 
+    /**
+     * Returns an instance of LoginDaoImpl
+     * @return LoginDaoImpl
+     */
+    public LoginDao getLoginDao() {
+        return new LoginDaoImpl(this);
+    }
+
     /**
      * Returns an instance of TestDaoImpl
      * @return TestDaoImpl
@@ -125,4 +375,12 @@ public class DAOFactory {
     public TestDao getTestDao() {
         return new TestDaoImpl(this);
     }
+
+    /**
+     * Returns an instance of TestFormatDaoImpl
+     * @return TestFormatDaoImpl
+     */
+    public TestFormatDao getTestFormatDao() {
+        return new TestFormatDaoImpl(this);
+    }
 }
\ No newline at end of file
@@ -68,6 +68,26 @@ public class DAOUtility
 		}
 	}
 	
+	/**
+	 * Rollback the current transaction of a connexion
+	 * 
+	 * @param connexion
+	 */
+	public static void silentRollback(Connection connexion) 
+	{
+		if (connexion != null) 
+		{
+			try 
+			{
+				connexion.rollback();
+			} 
+			catch (SQLException e) 
+			{
+				System.out.println("Échec de l'annulation de la transaction : " + e.getMessage());
+			}
+		}
+	}
+	
 	/**
 	 * Close a statement and a connexion
 	 * 
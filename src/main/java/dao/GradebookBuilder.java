@@ -0,0 +1,335 @@
+package dao;
+
+import static dao.DAOUtility.silentClosure;
+import static dao.QueryExecutor.prepare;
+import static dao.QueryExecutor.queryList;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import beans.Gradebook;
+import beans.Group;
+import beans.Score;
+import beans.Student;
+import beans.Subject;
+import beans.SubjectScore;
+import beans.Test;
+
+class GradebookBuilder {
+    private static final String SELECT_GRADEBOOK         = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.id as matiereId, gnw_matiere.nom as matiereNom, gnw_examen.coefficient, gnw_examen.moyenne, gnw_examen.nb_notes, gnw_examen.note_min, gnw_examen.note_max, gnw_examen_note.id as noteId, gnw_examen_note.note FROM gnw_examen INNER JOIN gnw_matiere ON gnw_examen.fk_matiere = gnw_matiere.id INNER JOIN gnw_groupe ON gnw_examen.fk_groupe = gnw_groupe.id INNER JOIN gnw_formatexamen ON gnw_examen.fk_format = gnw_formatexamen.id LEFT JOIN gnw_examen_note ON gnw_examen_note.fk_examen = gnw_examen.id AND gnw_examen_note.fk_etudiant = ? AND gnw_examen_note.date_suppr IS NULL WHERE gnw_examen.date_suppr IS NULL AND gnw_examen.fk_groupe = ? ORDER BY gnw_matiere.id";
+    private static final String SELECT_SUBJECT_AVERAGES  = "SELECT fk_matiere, somme_ponderee, somme_coefficients FROM gnw_moyenne_matiere WHERE fk_etudiant = ?";
+    private static final String SELECT_SUBJECT_GRADEBOOK = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.id as matiereId, gnw_matiere.nom as matiereNom, gnw_examen.coefficient, gnw_examen.moyenne, gnw_examen.nb_notes, gnw_examen.note_min, gnw_examen.note_max, gnw_examen_note.id as noteId, gnw_examen_note.note FROM gnw_examen INNER JOIN gnw_matiere ON gnw_examen.fk_matiere = gnw_matiere.id INNER JOIN gnw_groupe ON gnw_examen.fk_groupe = gnw_groupe.id INNER JOIN gnw_formatexamen ON gnw_examen.fk_format = gnw_formatexamen.id LEFT JOIN gnw_examen_note ON gnw_examen_note.fk_examen = gnw_examen.id AND gnw_examen_note.fk_etudiant = ? AND gnw_examen_note.date_suppr IS NULL WHERE gnw_examen.date_suppr IS NULL AND gnw_examen.fk_groupe = ? AND gnw_examen.fk_matiere = ? ORDER BY gnw_examen.id";
+    private static final String SELECT_GROUP_SUBJECTS    = "SELECT DISTINCT fk_matiere FROM gnw_examen WHERE date_suppr IS NULL AND fk_groupe = ?";
+    private DAOFactory daoFactory;
+
+    /**
+     * Constructor
+     * @param daoFactory
+     */
+    GradebookBuilder(DAOFactory daoFactory) {
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Builds a student gradebook from the tests of its group, in one query or one query per subject when the subjects are loaded in parallel,
+     * the subject averages come from the rollup table
+     * @param student
+     * @return gradebook
+     * @throws DAOException
+     */
+    Gradebook build(Student student) throws DAOException {
+        ExecutorService          executor      = daoFactory.getGradebookExecutor();
+        Map<Long, SubjectTotals> totals        = new LinkedHashMap<Long, SubjectTotals>();
+        Map<Long, Float>         averages      = new HashMap<Long, Float>();
+        Set<SubjectScore>        subjectScores = new TreeSet<SubjectScore>();
+        Gradebook                gradebook     = new Gradebook();
+
+        if (executor == null) {
+            load(student, totals, averages);
+        }
+        else {
+            loadInParallel(student, executor, totals, averages);
+        }
+
+        // Only the subjects in which the student has been scored appear in the gradebook
+        for (SubjectTotals subjectTotals : totals.values()) {
+            if (subjectTotals.scored) {
+                subjectScores.add(subjectTotals.toSubjectScore(averages.get(subjectTotals.subjectId)));
+            }
+        }
+
+        gradebook.setSubjectScores(subjectScores);
+        gradebook.setAverage(calcAverage(subjectScores));
+
+        return gradebook;
+    }
+
+    /**
+     * Loads the tests of every subject and the subject averages on one connection
+     * @param student
+     * @param totals
+     * @param averages
+     * @throws DAOException
+     */
+    private void load(Student student, Map<Long, SubjectTotals> totals, Map<Long, Float> averages) throws DAOException {
+        Connection connexion = null;
+        Group      group     = new Group(student.getGroup());
+
+        try {
+            connexion = daoFactory.getConnection();
+            readTests(connexion, student, totals, SELECT_GRADEBOOK, student.getId(), group.getId());
+            readAverages(connexion, student, averages);
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+    }
+
+    /**
+     * Loads the subject averages, then the tests of each subject on the executor with one pooled connection per subject
+     * @param student
+     * @param executor
+     * @param totals
+     * @param averages
+     * @throws DAOException
+     */
+    private void loadInParallel(Student student, ExecutorService executor, Map<Long, SubjectTotals> totals, Map<Long, Float> averages) throws DAOException {
+        Connection                             connexion = null;
+        Group                                  group     = new Group(student.getGroup());
+        List<Future<Map<Long, SubjectTotals>>> futures   = new ArrayList<Future<Map<Long, SubjectTotals>>>();
+        List<Long>                             subjectIds;
+
+        // The connection goes back to the pool before the subjects borrow theirs
+        try {
+            connexion = daoFactory.getConnection();
+            subjectIds = queryList(connexion, SELECT_GROUP_SUBJECTS, resultSet -> resultSet.getLong(1), group.getId());
+            readAverages(connexion, student, averages);
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+
+        for (Long subjectId : subjectIds) {
+            futures.add(executor.submit(() -> loadSubject(student, group.getId(), subjectId)));
+        }
+
+        try {
+            for (Future<Map<Long, SubjectTotals>> future : futures) {
+                totals.putAll(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Chargement du bulletin interrompu.", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof DAOException) {
+                throw (DAOException) e.getCause();
+            }
+
+            throw new DAOException(e.getCause());
+        }
+        finally {
+            for (Future<Map<Long, SubjectTotals>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Loads the tests of a subject on its own connection
+     * @param student
+     * @param groupId
+     * @param subjectId
+     * @return totals
+     * @throws DAOException
+     */
+    private Map<Long, SubjectTotals> loadSubject(Student student, Long groupId, Long subjectId) throws DAOException {
+        Connection               connexion = null;
+        Map<Long, SubjectTotals> totals    = new HashMap<Long, SubjectTotals>();
+
+        try {
+            connexion = daoFactory.getConnection();
+            readTests(connexion, student, totals, SELECT_SUBJECT_GRADEBOOK, student.getId(), groupId, subjectId);
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+
+        return totals;
+    }
+
+    /**
+     * Reads the tests of a gradebook query grouped by subject
+     * @param connexion
+     * @param student
+     * @param totals
+     * @param sql
+     * @param objets
+     * @throws SQLException
+     */
+    private static void readTests(Connection connexion, Student student, Map<Long, SubjectTotals> totals, String sql, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet         resultSet         = null;
+
+        try {
+            preparedStatement = prepare(connexion, sql, objets);
+            resultSet = preparedStatement.executeQuery();
+
+            while (resultSet.next()) {
+                Long          subjectId     = resultSet.getLong("matiereId");
+                SubjectTotals subjectTotals = totals.get(subjectId);
+
+                if (subjectTotals == null) {
+                    subjectTotals = new SubjectTotals(subjectId, resultSet.getString("matiereNom"));
+                    totals.put(subjectId, subjectTotals);
+                }
+
+                subjectTotals.add(mapTest(resultSet, student));
+            }
+        }
+        finally {
+            silentClosure(resultSet);
+            silentClosure(preparedStatement);
+        }
+    }
+
+    /**
+     * Reads the subject averages of a student from the rollup table
+     * @param connexion
+     * @param student
+     * @param averages
+     * @throws SQLException
+     */
+    private static void readAverages(Connection connexion, Student student, Map<Long, Float> averages) throws SQLException {
+        for (SubjectAverage subjectAverage : queryList(connexion, SELECT_SUBJECT_AVERAGES, GradebookBuilder::mapSubjectAverage, student.getId())) {
+            averages.put(subjectAverage.subjectId, subjectAverage.average);
+        }
+    }
+
+    /**
+     * Maps a test of the gradebook with the student score
+     * @param resultSet
+     * @param student
+     * @return test
+     * @throws SQLException
+     */
+    private static Test mapTest(ResultSet resultSet, Student student) throws SQLException {
+        Test       test   = TestDaoImpl.mapExamen(resultSet);
+        long       id     = resultSet.getLong("noteId");
+        float      note   = resultSet.getFloat("note");
+        Set<Score> scores = new TreeSet<Score>();
+
+        if (id != 0) {
+            Score score = new Score(student);
+            score.setId(id);
+            score.setScore(resultSet.wasNull() ? null : note);
+            scores.add(score);
+            test.setScores(scores);
+        }
+
+        test.getSubject().setId(resultSet.getLong("matiereId"));
+
+        return test;
+    }
+
+    /**
+     * Maps the weighted sums of a student in a subject
+     * @param resultSet
+     * @return subjectAverage
+     * @throws SQLException
+     */
+    private static SubjectAverage mapSubjectAverage(ResultSet resultSet) throws SQLException {
+        double weightedSum    = resultSet.getDouble("somme_ponderee");
+        double coefficientSum = resultSet.getDouble("somme_coefficients");
+
+        return new SubjectAverage(resultSet.getLong("fk_matiere"), (coefficientSum == 0) ? 0 : (float) (weightedSum / coefficientSum));
+    }
+
+    /**
+     * Calculates gradebook average
+     * @param subjectScores
+     * @return average
+     */
+    private static float calcAverage(Set<SubjectScore> subjectScores) {
+        float average = 0;
+        int   i       = 0;
+
+        for (SubjectScore subjectScore : subjectScores) {
+            average += subjectScore.getAverage();
+            i++;
+        }
+
+        return (average / i);
+    }
+
+    /**
+     * Average of a student in a subject read from the rollup table
+     */
+    private static class SubjectAverage {
+        private final Long  subjectId;
+        private final float average;
+
+        SubjectAverage(Long subjectId, float average) {
+            this.subjectId = subjectId;
+            this.average = average;
+        }
+    }
+
+    /**
+     * Tests of a subject while the rows are read
+     */
+    private static class SubjectTotals {
+        private Long      subjectId;
+        private String    subjectName;
+        private Set<Test> tests  = new TreeSet<Test>();
+        private boolean   scored = false;
+
+        SubjectTotals(Long subjectId, String subjectName) {
+            this.subjectId = subjectId;
+            this.subjectName = subjectName;
+        }
+
+        void add(Test test) {
+            tests.add(test);
+
+            if (test.getScores() != null) {
+                scored = true;
+            }
+        }
+
+        SubjectScore toSubjectScore(Float average) {
+            SubjectScore subjectScore = new SubjectScore();
+            Subject      subject      = new Subject(subjectId);
+
+            subject.setName(subjectName);
+            subjectScore.setId(subjectId);
+            subjectScore.setSubject(subject);
+            subjectScore.setTests(tests);
+            subjectScore.setAverage((average == null) ? 0 : average);
+
+            return subjectScore;
+        }
+    }
+}
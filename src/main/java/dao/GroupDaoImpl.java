@@ -4,9 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 import static dao.DAOUtility.*;
+import static dao.QueryExecutor.*;
 
 import java.util.TreeSet;
 import java.util.Set;
@@ -37,20 +37,18 @@ public class GroupDaoImpl implements GroupDao {
      * @throws DAOException
      */
     public void create(Group group) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     creator           = new Administrator(group.getCreator());
+        Connection    connexion = null;
+        Administrator creator   = new Administrator(group.getCreator());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, INSERT, true, group.getName(), creator.getId());
-            preparedStatement.executeUpdate();
+            update(connexion, INSERT, group.getName(), creator.getId());
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
     }
 
@@ -65,32 +63,20 @@ public class GroupDaoImpl implements GroupDao {
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
         Set<Group>        groupes           = new TreeSet<Group>();
-        String            SQLQuery          = SELECT_ALL;
+        SearchQuery       query             = new SearchQuery();
+
+        query.equal("gnw_groupe.id", group.getId())
+             .like("gnw_groupe.nom", group.getName());
 
         try {
             connexion = daoFactory.getConnection();
-
-            if (group.getId() != null) {
-                SQLQuery += " AND gnw_groupe.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_groupe.id IS NOT ?";
-            }
-
-            if (group.getName() != null) {
-                SQLQuery += " AND gnw_groupe.nom LIKE ?";
-                group.setName("%" + group.getName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_groupe.nom IS NOT ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, group.getId(), group.getName());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_ALL), query.getParameters());
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
                 group = map(resultSet);
                 groupes.add(group);
+                daoFactory.getGroupCache().put(group.getId(), new Group(group));
             }
         }
         catch (SQLException e) {
@@ -109,20 +95,20 @@ public class GroupDaoImpl implements GroupDao {
      * @throws DAOException
      */
     public void edit(Group group) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     editor            = new Administrator(group.getEditor());
+        Connection    connexion = null;
+        Administrator editor    = new Administrator(group.getEditor());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE, true, group.getName(), editor.getId(), group.getId());
-            preparedStatement.executeUpdate();
+            update(connexion, UPDATE, group.getName(), editor.getId(), group.getId());
+            daoFactory.getGroupCache().remove(group.getId());
+            daoFactory.getTeacherCache().clear();
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
     }
 
@@ -136,20 +122,14 @@ public class GroupDaoImpl implements GroupDao {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_COUNT_BY_NAME;
+        SearchQuery       query             = new SearchQuery(group.getName());
         int               status            = 0;
 
+        query.notEqual("id", group.getId());
+
         try {
             connexion = daoFactory.getConnection();
-
-            if (group.getId() == null) {
-                SQLQuery += " AND id IS NOT ?";
-            }
-            else {
-                SQLQuery += " AND id != ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, group.getName(), group.getId());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_COUNT_BY_NAME), query.getParameters());
             resultSet = preparedStatement.executeQuery();
             resultSet.next();
             status = resultSet.getInt(1);
@@ -165,31 +145,34 @@ public class GroupDaoImpl implements GroupDao {
     }
 
     /**
-     * Returns a group into database
+     * Returns a group, from the cache when it has already been read
      * @param group
      * @return group
      * @throws DAOException
      */
     public Group get(Group group) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
+        Connection connexion = null;
+        Group      found     = null;
+        Group      cached    = daoFactory.getGroupCache().get(group.getId());
+
+        if (cached != null) {
+            return new Group(cached);
+        }
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_BY_ID, true, group.getId());
-            resultSet = preparedStatement.executeQuery();
+            found = queryOne(connexion, SELECT_BY_ID, GroupDaoImpl::map, group.getId());
 
-            if (resultSet.next()) {
-                group = map(resultSet);
+            if (found != null) {
+                group = found;
+                daoFactory.getGroupCache().put(group.getId(), new Group(group));
             }
-
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
 
         return group;
@@ -201,42 +184,23 @@ public class GroupDaoImpl implements GroupDao {
      * @throws DAOException
      */
     public void delete(Group group) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     editor            = new Administrator(group.getEditor());
+        Connection    connexion = null;
+        Administrator editor    = new Administrator(group.getEditor());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, DELETE, true, editor.getId(), group.getId());
-            preparedStatement.executeUpdate();
+            update(connexion, DELETE, editor.getId(), group.getId());
+            daoFactory.getGroupCache().remove(group.getId());
+            daoFactory.getTeacherCache().clear();
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
     }
 
-    /**
-     * Prepares a SQL query
-     * @param connexion
-     * @param sql
-     * @param returnGeneratedKeys
-     * @param objets
-     * @return preparedStatement
-     * @throws SQLException
-     */
-    public static PreparedStatement initPreparedQuery(Connection connexion, String sql, boolean returnGeneratedKeys, Object... objets) throws SQLException {
-        PreparedStatement preparedStatement = connexion.prepareStatement(sql, returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
-
-        for (int i = 0; i < objets.length; i++) {
-            preparedStatement.setObject(i + 1, objets[i]);
-        }
-
-        return preparedStatement;
-    }
-
     /**
      * Maps a Group
      * @param resultSet
@@ -0,0 +1,227 @@
+package dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LRUCache<K, V> {
+    private final String                     name;
+    private final int                        maxSize;
+    private final long                       timeToLive;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final LinkedHashMap<K, Long>     removals;
+    private long                             generation      = 0;
+    private long                             forgotten       = 0;
+    private long                             hitCount        = 0;
+    private long                             missCount       = 0;
+    private long                             evictionCount   = 0;
+    private long                             expirationCount = 0;
+
+    /**
+     * Constructor
+     * @param name
+     * @param maxSize
+     * @param timeToLive in milliseconds, 0 keeps the entries until they are evicted
+     */
+    LRUCache(String name, int maxSize, long timeToLive) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LRUCache.this.maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+        // Generation of the last removal of the recent keys, oldest first, the older ones only count through forgotten
+        this.removals = new LinkedHashMap<K, Long>() {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                if (size() > Math.max(LRUCache.this.maxSize, 1)) {
+                    forgotten = eldest.getValue();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the value of a key or null if it is missing or expired
+     * @param key
+     * @return value
+     */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        if ((timeToLive > 0) && (System.currentTimeMillis() > entry.expiresAt)) {
+            entries.remove(key);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+
+        return entry.value;
+    }
+
+    /**
+     * Stores the value of a key
+     * @param key
+     * @param value
+     */
+    synchronized void put(K key, V value) {
+        if ((key == null) || (value == null) || (maxSize <= 0)) {
+            return;
+        }
+
+        entries.put(key, new Entry<V>(value, System.currentTimeMillis() + timeToLive));
+    }
+
+    /**
+     * Stores the value of a key built from data read after the given generation, it is dropped when the key was removed
+     * in the meantime since the value may predate the change which removed it
+     * @param key
+     * @param value
+     * @param since generation read before the value was built
+     */
+    synchronized void put(K key, V value, long since) {
+        Long removed = removals.get(key);
+
+        if (((removed != null) ? removed : forgotten) > since) {
+            return;
+        }
+
+        put(key, value);
+    }
+
+    /**
+     * Returns the current generation, to be read before building a value stored with put(key, value, since)
+     * @return generation
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Removes the value of a key
+     * @param key
+     */
+    synchronized void remove(K key) {
+        entries.remove(key);
+        generation++;
+        removals.remove(key);
+        removals.put(key, generation);
+    }
+
+    /**
+     * Removes every value
+     */
+    synchronized void clear() {
+        entries.clear();
+        generation++;
+        removals.clear();
+        forgotten = generation;
+    }
+
+    /**
+     * Returns the cache name
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of cached values
+     * @return size
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the max number of cached values
+     * @return maxSize
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of lookups answered by the cache
+     * @return hitCount
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which went to the database
+     * @return missCount
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of values evicted to respect the max size
+     * @return evictionCount
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of values dropped because they were too old
+     * @return expirationCount
+     */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Returns the part of lookups answered by the cache
+     * @return hitRatio
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hitCount + missCount;
+
+        return (lookups == 0) ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Returns cache statistics
+     * @return statistics
+     */
+    public synchronized String toString() {
+        return "LRUCache[" + name + ", size=" + entries.size() + "/" + maxSize + ", hits=" + hitCount + ", misses=" + missCount
+            + ", evictions=" + evictionCount + ", expirations=" + expirationCount + ", hitRatio=" + String.format("%.2f", getHitRatio()) + "]";
+    }
+
+    /**
+     * Cached value and its expiry time
+     */
+    private static class Entry<V> {
+        private final V    value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
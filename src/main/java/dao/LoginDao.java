@@ -0,0 +1,14 @@
+package dao;
+
+import beans.User;
+
+public interface LoginDao {
+    /**
+     * Checks a login into database, whatever the profile of the user
+     * @param emailAddress
+     * @param password in clear, checked against its stored hash
+     * @return User Student, Teacher or Administrator, null when the login is incorrect
+     * @throws DAOException
+     */
+    User checkLogin(String emailAddress, String password) throws DAOException;
+}
@@ -0,0 +1,171 @@
+package dao;
+
+import static dao.DAOUtility.silentClosures;
+import static dao.QueryExecutor.prepare;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import beans.Administrator;
+import beans.Group;
+import beans.Student;
+import beans.Teacher;
+import beans.User;
+import utilities.PasswordHasher;
+
+public class LoginDaoImpl implements LoginDao {
+    private static final int    STUDENT       = 0;
+    private static final int    TEACHER       = 1;
+    private static final int    ADMINISTRATOR = 2;
+    private static final String SELECT_LOGIN  = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail, gnw_utilisateur.mot_de_passe, gnw_utilisateur.profil, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom FROM gnw_utilisateur LEFT JOIN gnw_etudiant_groupe ON gnw_utilisateur.profil = 0 AND gnw_etudiant_groupe.fk_etudiant = gnw_utilisateur.id LEFT JOIN gnw_groupe ON gnw_groupe.id = gnw_etudiant_groupe.fk_groupe WHERE gnw_utilisateur.adresse_mail = ? AND gnw_utilisateur.date_suppr IS NULL ORDER BY gnw_utilisateur.profil, gnw_utilisateur.id";
+    private static final String UPDATE_HASH   = "UPDATE gnw_utilisateur SET mot_de_passe = ? WHERE id = ? AND mot_de_passe = ?";
+    private DAOFactory daoFactory;
+
+    /**
+     * Constructor
+     * @param daoFactory
+     */
+    LoginDaoImpl(DAOFactory daoFactory) {
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Checks a login with one query on the email address, the profile of the matching row gives the type of user,
+     * a hash older than the configured one is replaced once the password is checked
+     * @param emailAddress
+     * @param password in clear
+     * @return user, null when the login is incorrect
+     * @throws DAOException
+     */
+    public User checkLogin(String emailAddress, String password) throws DAOException {
+        LRUCache<String, User> loginCache        = daoFactory.getLoginCache();
+        PasswordHasher         passwordHasher    = PasswordHasher.getInstance();
+        User                   cached            = loginCache.get(emailAddress);
+        Connection             connexion         = null;
+        PreparedStatement      preparedStatement = null;
+        ResultSet              resultSet         = null;
+        User                   user              = null;
+        String                 rejected          = null;
+
+        // A user who logged in recently is not read again, the password is still checked against its hash
+        if ((cached != null) && passwordHasher.verify(password, cached.getPassword())) {
+            return copy(cached);
+        }
+
+        try {
+            connexion = daoFactory.getConnection();
+            preparedStatement = prepare(connexion, SELECT_LOGIN, emailAddress);
+            resultSet = preparedStatement.executeQuery();
+
+            while ((user == null) && resultSet.next()) {
+                String stored = resultSet.getString("mot_de_passe");
+
+                // The rows of a student in several groups share one hash, it is checked once
+                if (!stored.equals(rejected) && passwordHasher.verify(password, stored)) {
+                    user = map(resultSet);
+                    user.setPassword(stored);
+                }
+                else {
+                    rejected = stored;
+                }
+            }
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosures(resultSet, preparedStatement, connexion);
+        }
+
+        if ((user != null) && passwordHasher.needsRehash(user.getPassword())) {
+            rehash(user, passwordHasher.hash(password));
+        }
+
+        if (user != null) {
+            loginCache.put(emailAddress, copy(user));
+        }
+
+        return user;
+    }
+
+    /**
+     * Returns a copy of a user, the cached users are never handed out
+     * @param user
+     * @return copy
+     */
+    private static User copy(User user) {
+        if (user instanceof Student) {
+            return new Student((Student) user);
+        }
+
+        if (user instanceof Teacher) {
+            return new Teacher((Teacher) user);
+        }
+
+        return new Administrator((Administrator) user);
+    }
+
+    /**
+     * Replaces the hash of a user who just logged in, the old hash is kept if the update fails or the password changed meanwhile
+     * @param user
+     * @param hash
+     */
+    private void rehash(User user, String hash) {
+        Connection        connexion         = null;
+        PreparedStatement preparedStatement = null;
+
+        try {
+            connexion = daoFactory.getConnection();
+            preparedStatement = prepare(connexion, UPDATE_HASH, hash, user.getId(), user.getPassword());
+
+            if (preparedStatement.executeUpdate() == 1) {
+                user.setPassword(hash);
+            }
+        }
+        catch (SQLException e) {
+            System.out.println("Impossible de mettre à jour le mot de passe de l'utilisateur " + user.getId() + " : " + e.getMessage());
+        }
+        finally {
+            silentClosures(preparedStatement, connexion);
+        }
+    }
+
+    /**
+     * Maps a user according to its profile
+     * @param resultSet
+     * @return user
+     * @throws SQLException
+     */
+    private static User map(ResultSet resultSet) throws SQLException {
+        User user;
+
+        switch (resultSet.getInt("profil")) {
+            case STUDENT:
+                Student student = new Student();
+                Group   group   = new Group();
+
+                group.setId(resultSet.getLong("groupeId"));
+                group.setName(resultSet.getString("groupeNom"));
+                student.setGroup(group);
+                user = student;
+                break;
+            case TEACHER:
+                user = new Teacher();
+                break;
+            case ADMINISTRATOR:
+                user = new Administrator();
+                break;
+            default:
+                throw new SQLException("Profil inconnu : " + resultSet.getInt("profil"));
+        }
+
+        user.setId(resultSet.getLong("id"));
+        user.setLastName(resultSet.getString("nom"));
+        user.setFirstName(resultSet.getString("prenom"));
+        user.setEmailAddress(resultSet.getString("adresse_mail"));
+
+        return user;
+    }
+}
@@ -0,0 +1,70 @@
+package dao;
+
+import java.util.List;
+
+public class Page<T> {
+    private List<T> items;
+    private boolean hasNext;
+    private String  nextCursor;
+    private Integer total;
+
+    /**
+     * Constructor, rows holds at most one row more than the page to know if a next page exists
+     * @param rows
+     * @param size
+     * @param total null when it has not been counted
+     */
+    Page(List<T> rows, int size, Integer total) {
+        this.hasNext = rows.size() > size;
+        this.items = this.hasNext ? rows.subList(0, size) : rows;
+        this.total = total;
+    }
+
+    /**
+     * Returns the rows of the page
+     * @return items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the last row of the page
+     * @return last
+     */
+    T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+
+    /**
+     * Returns true if a next page exists
+     * @return hasNext
+     */
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    /**
+     * Returns the cursor of the next page
+     * @return nextCursor
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page
+     * @param nextCursor
+     */
+    void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the number of matching rows, null when it has not been counted
+     * @return total
+     */
+    public Integer getTotal() {
+        return total;
+    }
+}
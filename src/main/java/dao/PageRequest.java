@@ -0,0 +1,99 @@
+package dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class PageRequest {
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE     = 200;
+    private int     size;
+    private String  afterName;
+    private Long    afterId;
+    private boolean countTotal;
+
+    /**
+     * Constructor
+     * @param size number of rows of the page, bounded by MAX_SIZE
+     * @param cursor next cursor of the previous page, null for the first page
+     * @param countTotal true to count every matching row
+     */
+    public PageRequest(int size, String cursor, boolean countTotal) {
+        this.size = ((size <= 0) ? DEFAULT_SIZE : Math.min(size, MAX_SIZE));
+        this.countTotal = countTotal;
+        decodeCursor(cursor);
+    }
+
+    /**
+     * Returns the cursor of a row, the rows are sorted by name then id
+     * @param name
+     * @param id
+     * @return cursor
+     */
+    public static String cursor(String name, Long id) {
+        String key = id + ":" + ((name == null) ? "" : name);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the last name and id of the previous page, an invalid cursor restarts from the first page
+     * @param cursor
+     */
+    private void decodeCursor(String cursor) {
+        if ((cursor == null) || cursor.isEmpty()) {
+            return;
+        }
+
+        try {
+            String key       = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int    separator = key.indexOf(':');
+
+            this.afterId = Long.parseLong(key.substring(0, separator));
+            this.afterName = key.substring(separator + 1);
+        }
+        catch (RuntimeException e) {
+            this.afterId = null;
+            this.afterName = null;
+        }
+    }
+
+    /**
+     * Returns the number of rows of the page
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the name of the last row of the previous page
+     * @return afterName
+     */
+    public String getAfterName() {
+        return afterName;
+    }
+
+    /**
+     * Returns the id of the last row of the previous page
+     * @return afterId
+     */
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Returns true if the page starts after a cursor
+     * @return hasCursor
+     */
+    public boolean hasCursor() {
+        return afterId != null;
+    }
+
+    /**
+     * Returns true if every matching row must be counted
+     * @return countTotal
+     */
+    public boolean isCountTotal() {
+        return countTotal;
+    }
+}
@@ -0,0 +1,432 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+class PooledConnection {
+    private final ConnectionPool                         pool;
+    private final Connection                             connection;
+    private final long                                   createdAt;
+    private final int                                    statementCacheSize;
+    private final LinkedHashMap<String, CachedStatement> statementCache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true);
+    private volatile long                                lastUsedAt;
+    private volatile long                                borrowedAt;
+    private volatile Throwable                           borrowTrace;
+    private volatile boolean                             leakReported;
+
+    /**
+     * Constructor
+     * @param pool
+     * @param connection
+     * @param statementCacheSize max number of prepared statements kept open, 0 disables the cache
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = this.createdAt;
+    }
+
+    /**
+     * Marks the connection as borrowed and returns a new handle on it
+     * @param trace
+     * @return connection
+     */
+    Connection borrow(Throwable trace) {
+        this.borrowedAt = System.currentTimeMillis();
+        this.borrowTrace = trace;
+        this.leakReported = false;
+
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, new Handle());
+    }
+
+    /**
+     * Restores the default state of the connection before it goes back into the pool
+     * @return true if the connection can be reused
+     */
+    boolean reset() {
+        this.lastUsedAt = System.currentTimeMillis();
+        this.borrowTrace = null;
+
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+
+            connection.clearWarnings();
+        }
+        catch (SQLException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes the cached statements and the physical connection
+     */
+    void destroy() {
+        for (CachedStatement cachedStatement : statementCache.values()) {
+            DAOUtility.silentClosure(cachedStatement.statement);
+        }
+
+        statementCache.clear();
+        DAOUtility.silentClosure(connection);
+    }
+
+    /**
+     * Returns a prepared statement of the cache, or prepares and caches it on the first use of its SQL
+     * @param sql
+     * @param autoGeneratedKeys
+     * @param owner handle of the borrower
+     * @return preparedStatement
+     * @throws SQLException
+     */
+    private PreparedStatement prepareStatement(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+        String          key             = autoGeneratedKeys + ":" + sql;
+        CachedStatement cachedStatement = statementCache.get(key);
+
+        if (cachedStatement == null) {
+            pool.statementCacheMiss();
+            cachedStatement = new CachedStatement(key, connection.prepareStatement(sql, autoGeneratedKeys));
+            statementCache.put(key, cachedStatement);
+            evictStatements();
+        }
+        else if (cachedStatement.inUse) {
+            // The same query is already open in this lease, the second one is not cached
+            pool.statementCacheMiss();
+            return (PreparedStatement) wrap(connection.prepareStatement(sql, autoGeneratedKeys), null, owner);
+        }
+        else {
+            pool.statementCacheHit();
+        }
+
+        cachedStatement.inUse = true;
+
+        return (PreparedStatement) wrap(cachedStatement.statement, cachedStatement, owner);
+    }
+
+    /**
+     * Returns the handle of a statement given to a borrower, its connection is the borrower's handle and not the physical connection
+     * @param statement
+     * @param cachedStatement null when the statement is not cached
+     * @param owner handle of the borrower
+     * @return statement
+     */
+    private Statement wrap(Statement statement, CachedStatement cachedStatement, Connection owner) {
+        Class<?> type = (statement instanceof CallableStatement) ? CallableStatement.class : (statement instanceof PreparedStatement) ? PreparedStatement.class : Statement.class;
+
+        return (Statement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{type}, new StatementHandle(statement, cachedStatement, owner));
+    }
+
+    /**
+     * Closes the least recently used statements beyond the cache size, statements in use are closed when they come back
+     */
+    private void evictStatements() {
+        Iterator<CachedStatement> iterator = statementCache.values().iterator();
+
+        while ((statementCache.size() > statementCacheSize) && iterator.hasNext()) {
+            CachedStatement cachedStatement = iterator.next();
+
+            iterator.remove();
+            cachedStatement.evicted = true;
+
+            if (!cachedStatement.inUse) {
+                DAOUtility.silentClosure(cachedStatement.statement);
+            }
+        }
+    }
+
+    /**
+     * Gives a statement back to the cache once its borrower closed it
+     * @param cachedStatement
+     */
+    private void returnStatement(CachedStatement cachedStatement) {
+        cachedStatement.inUse = false;
+
+        if (cachedStatement.evicted) {
+            DAOUtility.silentClosure(cachedStatement.statement);
+            return;
+        }
+
+        try {
+            ResultSet resultSet = cachedStatement.statement.getResultSet();
+
+            if (resultSet != null) {
+                resultSet.close();
+            }
+
+            cachedStatement.statement.clearParameters();
+            cachedStatement.statement.clearBatch();
+            cachedStatement.statement.clearWarnings();
+        }
+        catch (SQLException e) {
+            statementCache.remove(cachedStatement.key);
+            DAOUtility.silentClosure(cachedStatement.statement);
+        }
+    }
+
+    /**
+     * Returns the physical connection
+     * @return connection
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns the creation time of the connection
+     * @return createdAt
+     */
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the last time the connection went back into the pool
+     * @return lastUsedAt
+     */
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    /**
+     * Returns the last time the connection was borrowed
+     * @return borrowedAt
+     */
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    /**
+     * Returns the stack trace of the last borrower
+     * @return borrowTrace
+     */
+    Throwable getBorrowTrace() {
+        return borrowTrace;
+    }
+
+    /**
+     * Returns true if a leak has already been reported for the current borrow
+     * @return leakReported
+     */
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    /**
+     * Sets the leak reported flag of the current borrow
+     * @param leakReported
+     */
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    /**
+     * Handle given to a borrower, close() sends the connection back into the pool
+     */
+    private class Handle implements InvocationHandler {
+        private boolean         closed     = false;
+        private List<Statement> statements = new ArrayList<Statement>();
+
+        /**
+         * Returns true for prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys)
+         * @param args
+         * @return cacheable
+         */
+        private boolean isCacheable(Object[] args) {
+            return (args.length == 1) || ((args.length == 2) && (args[1] instanceof Integer));
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("close".equals(name)) {
+                if (!closed) {
+                    closed = true;
+
+                    // Statements left open by the borrower must not outlive the lease
+                    for (Statement statement : statements) {
+                        DAOUtility.silentClosure(statement);
+                    }
+
+                    statements.clear();
+                    pool.release(PooledConnection.this);
+                }
+
+                return null;
+            }
+
+            if ("isClosed".equals(name)) {
+                return closed || connection.isClosed();
+            }
+
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (closed) {
+                throw new SQLException("La connexion a déjà été rendue au pool.");
+            }
+
+            if ("prepareStatement".equals(name) && (statementCacheSize > 0) && isCacheable(args)) {
+                Statement statement = prepareStatement((String) args[0], (args.length == 2) ? (Integer) args[1] : Statement.NO_GENERATED_KEYS, (Connection) proxy);
+                statements.add(statement);
+
+                return statement;
+            }
+
+            try {
+                Object result = method.invoke(connection, args);
+
+                if (result instanceof Statement) {
+                    result = wrap((Statement) result, null, (Connection) proxy);
+                    statements.add((Statement) result);
+                }
+
+                return result;
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Prepared statement kept open between two leases
+     */
+    private static class CachedStatement {
+        private final String            key;
+        private final PreparedStatement statement;
+        private boolean                 inUse   = false;
+        private boolean                 evicted = false;
+
+        CachedStatement(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * Handle given to a borrower, close() sends a cached statement back into the cache, and the connection
+     * and result sets it hands out lead back to the handles of the borrower
+     */
+    private class StatementHandle implements InvocationHandler {
+        private final Statement       statement;
+        private final CachedStatement cachedStatement;
+        private final Connection      owner;
+        private boolean               closed = false;
+
+        StatementHandle(Statement statement, CachedStatement cachedStatement, Connection owner) {
+            this.statement = statement;
+            this.cachedStatement = cachedStatement;
+            this.owner = owner;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("close".equals(name)) {
+                if (!closed) {
+                    closed = true;
+
+                    if (cachedStatement != null) {
+                        returnStatement(cachedStatement);
+                    }
+                    else {
+                        statement.close();
+                    }
+                }
+
+                return null;
+            }
+
+            if ("isClosed".equals(name)) {
+                return closed;
+            }
+
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (closed) {
+                throw new SQLException("La requête préparée a déjà été fermée.");
+            }
+
+            if ("getConnection".equals(name)) {
+                return owner;
+            }
+
+            try {
+                Object result = method.invoke(statement, args);
+
+                if (result instanceof ResultSet) {
+                    return Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{ResultSet.class}, new ResultSetHandle((ResultSet) result, (Statement) proxy));
+                }
+
+                return result;
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Handle of a result set given to a borrower, its statement is the borrower's handle
+     */
+    private static class ResultSetHandle implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final Statement owner;
+
+        ResultSetHandle(ResultSet resultSet, Statement owner) {
+            this.resultSet = resultSet;
+            this.owner = owner;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("getStatement".equals(name)) {
+                return owner;
+            }
+
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+
+            try {
+                return method.invoke(resultSet, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dao;
+
+import static dao.DAOUtility.silentClosure;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class QueryExecutor {
+    /**
+     * Constructor
+     */
+    private QueryExecutor() {
+    }
+
+    /**
+     * Prepares a SQL query, generated keys are only requested for inserts
+     * @param connexion
+     * @param sql
+     * @param objets
+     * @return preparedStatement
+     * @throws SQLException
+     */
+    public static PreparedStatement prepare(Connection connexion, String sql, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = connexion.prepareStatement(sql, isInsert(sql) ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+
+        bind(preparedStatement, objets);
+
+        return preparedStatement;
+    }
+
+    /**
+     * Binds the parameters of a prepared statement with the setter of their type
+     * @param preparedStatement
+     * @param objets
+     * @throws SQLException
+     */
+    public static void bind(PreparedStatement preparedStatement, Object... objets) throws SQLException {
+        for (int i = 0; i < objets.length; i++) {
+            int    index = i + 1;
+            Object objet = objets[i];
+
+            if (objet == null) {
+                preparedStatement.setNull(index, Types.NULL);
+            }
+            else if (objet instanceof String) {
+                preparedStatement.setString(index, (String) objet);
+            }
+            else if (objet instanceof Long) {
+                preparedStatement.setLong(index, (Long) objet);
+            }
+            else if (objet instanceof Integer) {
+                preparedStatement.setInt(index, (Integer) objet);
+            }
+            else if (objet instanceof Float) {
+                preparedStatement.setFloat(index, (Float) objet);
+            }
+            else if (objet instanceof Double) {
+                preparedStatement.setDouble(index, (Double) objet);
+            }
+            else if (objet instanceof Boolean) {
+                preparedStatement.setBoolean(index, (Boolean) objet);
+            }
+            else if (objet instanceof Timestamp) {
+                preparedStatement.setTimestamp(index, (Timestamp) objet);
+            }
+            else if (objet instanceof Date) {
+                preparedStatement.setTimestamp(index, new Timestamp(((Date) objet).getTime()));
+            }
+            else {
+                preparedStatement.setObject(index, objet);
+            }
+        }
+    }
+
+    /**
+     * Returns every row of a query mapped by the row mapper
+     * @param connexion
+     * @param sql
+     * @param rowMapper
+     * @param objets
+     * @return rows
+     * @throws SQLException
+     */
+    public static <T> List<T> queryList(Connection connexion, String sql, RowMapper<T> rowMapper, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet         resultSet         = null;
+        List<T>           rows              = new ArrayList<T>();
+
+        try {
+            preparedStatement = prepare(connexion, sql, objets);
+            resultSet = preparedStatement.executeQuery();
+
+            while (resultSet.next()) {
+                rows.add(rowMapper.map(resultSet));
+            }
+        }
+        finally {
+            silentClosure(resultSet);
+            silentClosure(preparedStatement);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns the first row of a query mapped by the row mapper, null when there is none
+     * @param connexion
+     * @param sql
+     * @param rowMapper
+     * @param objets
+     * @return row
+     * @throws SQLException
+     */
+    public static <T> T queryOne(Connection connexion, String sql, RowMapper<T> rowMapper, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet         resultSet         = null;
+
+        try {
+            preparedStatement = prepare(connexion, sql, objets);
+            resultSet = preparedStatement.executeQuery();
+
+            return resultSet.next() ? rowMapper.map(resultSet) : null;
+        }
+        finally {
+            silentClosure(resultSet);
+            silentClosure(preparedStatement);
+        }
+    }
+
+    /**
+     * Returns the number returned by a count query
+     * @param connexion
+     * @param sql
+     * @param objets
+     * @return count
+     * @throws SQLException
+     */
+    public static int count(Connection connexion, String sql, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet         resultSet         = null;
+
+        try {
+            preparedStatement = prepare(connexion, sql, objets);
+            resultSet = preparedStatement.executeQuery();
+
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+        finally {
+            silentClosure(resultSet);
+            silentClosure(preparedStatement);
+        }
+    }
+
+    /**
+     * Executes an update, insert or delete query
+     * @param connexion
+     * @param sql
+     * @param objets
+     * @return number of rows
+     * @throws SQLException
+     */
+    public static int update(Connection connexion, String sql, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = null;
+
+        try {
+            preparedStatement = prepare(connexion, sql, objets);
+
+            return preparedStatement.executeUpdate();
+        }
+        finally {
+            silentClosure(preparedStatement);
+        }
+    }
+
+    /**
+     * Executes an insert query and returns the generated key, null when there is none
+     * @param connexion
+     * @param sql
+     * @param objets
+     * @return id
+     * @throws SQLException
+     */
+    public static Long insert(Connection connexion, String sql, Object... objets) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet         resultSet         = null;
+
+        try {
+            preparedStatement = prepare(connexion, sql, objets);
+            preparedStatement.executeUpdate();
+            resultSet = preparedStatement.getGeneratedKeys();
+
+            return resultSet.next() ? resultSet.getLong(1) : null;
+        }
+        finally {
+            silentClosure(resultSet);
+            silentClosure(preparedStatement);
+        }
+    }
+
+    /**
+     * Returns the parenthesized placeholders of an IN list
+     * @param count
+     * @return "(?, ?, ...)"
+     */
+    public static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder("(");
+
+        for (int i = 0; i < count; i++) {
+            builder.append((i == 0) ? "?" : ", ?");
+        }
+
+        return builder.append(")").toString();
+    }
+
+    /**
+     * Returns true if the SQL query is an insert
+     * @param sql
+     * @return insert
+     */
+    private static boolean isInsert(String sql) {
+        return sql.trim().regionMatches(true, 0, "INSERT", 0, 6);
+    }
+}
@@ -0,0 +1,14 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public interface RowMapper<T> {
+    /**
+     * Maps the current row of a result set
+     * @param resultSet
+     * @return T
+     * @throws SQLException
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,203 @@
+package dao;
+
+import static dao.DAOUtility.silentClosure;
+import static dao.QueryExecutor.count;
+import static dao.QueryExecutor.update;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+class SchemaMigrator {
+    private static final String MIGRATIONS_PATH = "dao/migrations/V";
+    private static final String LOCK_NAME       = "gnw_schema_migration";
+    private static final int    LOCK_TIMEOUT    = 60;
+    private static final String CREATE_VERSION  = "CREATE TABLE IF NOT EXISTS gnw_schema_version (version INT(11) NOT NULL, description VARCHAR(255) NOT NULL, date_creat TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (version)) ENGINE = InnoDB";
+    private static final String SELECT_VERSION  = "SELECT COALESCE(MAX(version), 0) FROM gnw_schema_version";
+    private static final String INSERT_VERSION  = "INSERT INTO gnw_schema_version (version, description) VALUES (?, ?)";
+    private static final String GET_LOCK        = "SELECT GET_LOCK(?, ?)";
+    private static final String RELEASE_LOCK    = "SELECT RELEASE_LOCK(?)";
+    // Table, column or index already created, index already dropped: the change is already in the schema
+    private static final int[]  ALREADY_APPLIED = {1050, 1060, 1061, 1091};
+    private DAOFactory daoFactory;
+
+    /**
+     * Constructor
+     * @param daoFactory
+     */
+    SchemaMigrator(DAOFactory daoFactory) {
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Applies in order the migrations newer than the schema version, one server at a time
+     * @return number of migrations applied
+     * @throws DAOException
+     */
+    int migrate() throws DAOException {
+        Connection connexion = null;
+        int        applied   = 0;
+        int        version;
+
+        try {
+            connexion = daoFactory.getConnection();
+
+            if (count(connexion, GET_LOCK, LOCK_NAME, LOCK_TIMEOUT) != 1) {
+                throw new DAOException("Impossible d'obtenir le verrou de migration du schéma.");
+            }
+
+            try {
+                update(connexion, CREATE_VERSION);
+                version = count(connexion, SELECT_VERSION);
+
+                for (int next = version + 1; ; next++) {
+                    Migration migration = readMigration(next);
+
+                    if (migration == null) {
+                        break;
+                    }
+
+                    for (String statement : migration.statements) {
+                        execute(connexion, statement);
+                    }
+
+                    update(connexion, INSERT_VERSION, next, migration.description);
+                    System.out.println("Migration V" + next + " du schéma appliquée.");
+                    applied++;
+                }
+            }
+            finally {
+                count(connexion, RELEASE_LOCK, LOCK_NAME);
+            }
+        }
+        catch (SQLException e) {
+            throw new DAOException("Échec de la migration du schéma : " + e.getMessage(), e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+
+        return applied;
+    }
+
+    /**
+     * Executes one statement of a migration, a change already in the schema is skipped
+     * @param connexion
+     * @param sql
+     * @throws SQLException
+     */
+    private static void execute(Connection connexion, String sql) throws SQLException {
+        Statement statement = null;
+
+        try {
+            statement = connexion.createStatement();
+            statement.execute(sql);
+        }
+        catch (SQLException e) {
+            if (!isAlreadyApplied(e)) {
+                throw e;
+            }
+
+            System.out.println("Migration déjà présente dans le schéma : " + e.getMessage());
+        }
+        finally {
+            silentClosure(statement);
+        }
+    }
+
+    /**
+     * Returns true if the error means the change is already in the schema
+     * @param e
+     * @return alreadyApplied
+     */
+    private static boolean isAlreadyApplied(SQLException e) {
+        for (int code : ALREADY_APPLIED) {
+            if (e.getErrorCode() == code) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads a migration, its first comment line describes it and each statement ends with a semicolon at the end of a line
+     * @param version
+     * @return migration, null when it does not exist
+     * @throws DAOException
+     */
+    private static Migration readMigration(int version) throws DAOException {
+        ClassLoader    classLoader = Thread.currentThread().getContextClassLoader();
+        InputStream    input       = classLoader.getResourceAsStream(MIGRATIONS_PATH + version + ".sql");
+        Migration      migration   = new Migration("V" + version);
+        StringBuilder  statement   = new StringBuilder();
+        BufferedReader reader;
+        String         line;
+
+        if (input == null) {
+            return null;
+        }
+
+        try {
+            reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+            try {
+                while ((line = reader.readLine()) != null) {
+                    String trimmed = line.trim();
+
+                    if (trimmed.startsWith("--")) {
+                        if (!migration.described && (trimmed.length() > 2)) {
+                            migration.description = trimmed.substring(2).trim();
+                            migration.described = true;
+                        }
+
+                        continue;
+                    }
+
+                    if (trimmed.isEmpty()) {
+                        continue;
+                    }
+
+                    statement.append(line).append('\n');
+
+                    if (trimmed.endsWith(";")) {
+                        migration.statements.add(statement.substring(0, statement.lastIndexOf(";")));
+                        statement.setLength(0);
+                    }
+                }
+            }
+            finally {
+                reader.close();
+            }
+        }
+        catch (IOException e) {
+            throw new DAOException("Impossible de lire la migration V" + version + " du schéma.", e);
+        }
+
+        if (statement.toString().trim().length() > 0) {
+            migration.statements.add(statement.toString());
+        }
+
+        return migration;
+    }
+
+    /**
+     * Description and statements of a migration
+     */
+    private static class Migration {
+        private String       description;
+        private boolean      described  = false;
+        private List<String> statements = new ArrayList<String>();
+
+        Migration(String description) {
+            this.description = description;
+        }
+    }
+}
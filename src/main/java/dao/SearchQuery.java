@@ -0,0 +1,158 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+class SearchQuery {
+    private static final ConcurrentHashMap<Shape, String> SHAPES = new ConcurrentHashMap<Shape, String>();
+    private List<String> predicates = new ArrayList<String>();
+    private List<Object> parameters = new ArrayList<Object>();
+
+    /**
+     * Constructor
+     * @param objets parameters of the fixed part of the query
+     */
+    SearchQuery(Object... objets) {
+        for (Object objet : objets) {
+            parameters.add(objet);
+        }
+    }
+
+    /**
+     * Adds "column = ?" when the value is supplied
+     * @param column
+     * @param value
+     * @return searchQuery
+     */
+    SearchQuery equal(String column, Object value) {
+        return where(value != null, column + " = ?", value);
+    }
+
+    /**
+     * Adds "column != ?" when the value is supplied
+     * @param column
+     * @param value
+     * @return searchQuery
+     */
+    SearchQuery notEqual(String column, Object value) {
+        return where(value != null, column + " != ?", value);
+    }
+
+    /**
+     * Adds "column LIKE %value%" when the value is supplied
+     * @param column
+     * @param value
+     * @return searchQuery
+     */
+    SearchQuery like(String column, String value) {
+        return where(value != null, column + " LIKE ?", "%" + value + "%");
+    }
+
+    /**
+     * Adds the keyset predicate of the rows sorted by name then id when a cursor is supplied
+     * @param nameColumn
+     * @param idColumn
+     * @param pageRequest
+     * @return searchQuery
+     */
+    SearchQuery after(String nameColumn, String idColumn, PageRequest pageRequest) {
+        return where(pageRequest.hasCursor(), "(" + nameColumn + " > ? OR (" + nameColumn + " = ? AND " + idColumn + " > ?))",
+            pageRequest.getAfterName(), pageRequest.getAfterName(), pageRequest.getAfterId());
+    }
+
+    /**
+     * Returns the SQL query made of the select, the supplied predicates and the suffix, built once per filter combination
+     * @param select
+     * @param suffix
+     * @return sql
+     */
+    String toSql(String select, String suffix) {
+        Shape  shape = new Shape(select, predicates, suffix);
+        String sql   = SHAPES.get(shape);
+
+        if (sql == null) {
+            StringBuilder builder = new StringBuilder(select);
+
+            for (String predicate : predicates) {
+                builder.append(" AND ").append(predicate);
+            }
+
+            sql = builder.append(suffix).toString();
+            // The stored key gets its own copy, the predicates of this query may still grow
+            SHAPES.putIfAbsent(new Shape(select, new ArrayList<String>(predicates), suffix), sql);
+        }
+
+        return sql;
+    }
+
+    /**
+     * Returns the SQL query made of the select and the supplied predicates
+     * @param select
+     * @return sql
+     */
+    String toSql(String select) {
+        return toSql(select, "");
+    }
+
+    /**
+     * Returns the parameters of the supplied predicates followed by the extra ones
+     * @param objets
+     * @return parameters
+     */
+    Object[] getParameters(Object... objets) {
+        Object[] all = parameters.toArray(new Object[parameters.size() + objets.length]);
+
+        System.arraycopy(objets, 0, all, parameters.size(), objets.length);
+
+        return all;
+    }
+
+    /**
+     * Adds a predicate and its parameters when its filter is supplied
+     * @param supplied
+     * @param predicate
+     * @param objets
+     * @return searchQuery
+     */
+    private SearchQuery where(boolean supplied, String predicate, Object... objets) {
+        if (supplied) {
+            predicates.add(predicate);
+
+            for (Object objet : objets) {
+                parameters.add(objet);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Select, suffix and supplied predicates, with their columns and operators, of a query
+     */
+    private static class Shape {
+        private final String       select;
+        private final List<String> predicates;
+        private final String       suffix;
+
+        Shape(String select, List<String> predicates, String suffix) {
+            this.select = select;
+            this.predicates = predicates;
+            this.suffix = suffix;
+        }
+
+        public boolean equals(Object objet) {
+            if (!(objet instanceof Shape)) {
+                return false;
+            }
+
+            Shape shape = (Shape) objet;
+
+            return select.equals(shape.select) && predicates.equals(shape.predicates) && suffix.equals(shape.suffix);
+        }
+
+        public int hashCode() {
+            return 31 * (31 * select.hashCode() + predicates.hashCode()) + suffix.hashCode();
+        }
+    }
+}
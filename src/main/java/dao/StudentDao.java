@@ -1,7 +1,9 @@
 package dao;
 
+import java.util.List;
 import java.util.Set;
 
+import beans.Group;
 import beans.Student;
 
 public interface StudentDao {
@@ -13,12 +15,21 @@ public interface StudentDao {
     void create(Student student);
 
     /**
-     * Searches one or more students into database
+     * Creates students into database in batches, leaving out those whose email address is already used
+     * @param students
+     * @return Set<String> email addresses already used
+     * @throws DAOException
+     */
+    Set<String> importStudents(List<Student> students) throws DAOException;
+
+    /**
+     * Searches a page of students into database, sorted by last name then id
      * @param student
-     * @return Set<Student>
+     * @param pageRequest
+     * @return Page<Student>
      * @throws DAOException
      */
-    Set<Student> search(Student student) throws DAOException;
+    Page<Student> search(Student student, PageRequest pageRequest) throws DAOException;
 
     /**
      * Edits a student into database
@@ -57,18 +68,18 @@ public interface StudentDao {
     void delete(Student student) throws DAOException;
 
     /**
-     * Checks student login into database
+     * Returns all informations of a student into database (profile and gradebook)
      * @param student
      * @return Student
      * @throws DAOException
      */
-    Student checkLogin(Student student) throws DAOException;
+    Student getAll(Student student) throws DAOException;
 
     /**
-     * Returns all informations of a student into database (profile and gradebook)
-     * @param student
-     * @return Student
+     * Builds and caches the gradebooks of every student of a group, after a bulk grade import for instance
+     * @param group
+     * @return int number of gradebooks built
      * @throws DAOException
      */
-    Student getAll(Student student) throws DAOException;
+    int warmGradebooks(Group group) throws DAOException;
 }
\ No newline at end of file
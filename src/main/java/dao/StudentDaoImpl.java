@@ -7,26 +7,33 @@ import java.sql.SQLException;
 import java.sql.Statement;
 
 import static dao.DAOUtility.*;
+import static dao.QueryExecutor.*;
 
-import java.util.TreeSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import beans.Administrator;
+import beans.Gradebook;
 import beans.Student;
 import beans.Group;
 
 public class StudentDaoImpl implements StudentDao {
     private DAOFactory daoFactory;
+    private UnitOfWork unitOfWork;
     private static final String SELECT_COUNT_BY_EMAIL   = "SELECT COUNT(id) FROM gnw_utilisateur WHERE profil = 0 AND gnw_utilisateur.adresse_mail = ?";
     private static final String SELECT_ALL              = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom FROM gnw_utilisateur, gnw_etudiant_groupe, gnw_groupe WHERE profil = 0 AND gnw_utilisateur.date_suppr IS NULL AND gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_groupe.id = gnw_etudiant_groupe.fk_groupe";
+    private static final String COUNT_ALL               = "SELECT COUNT(gnw_utilisateur.id) FROM gnw_utilisateur, gnw_etudiant_groupe, gnw_groupe WHERE profil = 0 AND gnw_utilisateur.date_suppr IS NULL AND gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_groupe.id = gnw_etudiant_groupe.fk_groupe";
     private static final String SELECT_BY_ID            = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom FROM gnw_utilisateur, gnw_etudiant_groupe, gnw_groupe WHERE profil = 0 AND gnw_utilisateur.date_suppr IS NULL AND gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_groupe.id = gnw_etudiant_groupe.fk_groupe AND gnw_utilisateur.id = ?";
-    private static final String SELECT_LOGIN            = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom FROM gnw_utilisateur, gnw_etudiant_groupe, gnw_groupe WHERE profil = 0 AND gnw_utilisateur.date_suppr IS NULL AND gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_groupe.id = gnw_etudiant_groupe.fk_groupe AND gnw_utilisateur.adresse_mail = ? AND gnw_utilisateur.mot_de_passe = ?";
     private static final String INSERT_STUDENT          = "INSERT INTO gnw_utilisateur (nom, prenom, adresse_mail, mot_de_passe, profil, fk_utilisateur) VALUES (?, ?, ?, ?, 0, ?)";
-    private static final String INSERT_GROUP            = "INSERT INTO gnw_etudiant_groupe (fk_etudiant, fk_groupe, fk_utilisateur) VALUES ( ?, ?, ? );";
+    private static final String INSERT_GROUP            = "INSERT INTO gnw_etudiant_groupe (fk_etudiant, fk_groupe, fk_utilisateur) VALUES (?, ?, ?)";
     private static final String UPDATE_STUDENT          = "UPDATE gnw_utilisateur SET nom = ?, prenom = ?, adresse_mail = ?, fk_utilisateur = ? WHERE id = ?";
     private static final String UPDATE_STUDENT_PASSWORD = "UPDATE gnw_utilisateur SET mot_de_passe = ?, fk_utilisateur = ? WHERE id = ?";
     private static final String UPDATE_STUDENT_GROUP    = "UPDATE gnw_etudiant_groupe SET fk_groupe = ?, fk_utilisateur = ? WHERE fk_etudiant = ?";
     private static final String DELETE_STUDENT          = "UPDATE gnw_utilisateur SET date_suppr = now(), fk_utilisateur = ? WHERE id = ?";
+    private static final String SELECT_EXISTING_EMAILS  = "SELECT adresse_mail FROM gnw_utilisateur WHERE profil = 0 AND adresse_mail IN ";
+    private static final String SELECT_BY_GROUP         = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom FROM gnw_utilisateur, gnw_etudiant_groupe, gnw_groupe WHERE profil = 0 AND gnw_utilisateur.date_suppr IS NULL AND gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_groupe.id = gnw_etudiant_groupe.fk_groupe AND gnw_groupe.id = ?";
 
     /**
      * Return daoFactory
@@ -34,63 +41,140 @@ public class StudentDaoImpl implements StudentDao {
      */
     StudentDaoImpl(DAOFactory daoFactory) {
         this.daoFactory = daoFactory;
+        this.unitOfWork = new UnitOfWork(daoFactory);
     }
 
     /**
-     * Creates a student into database
+     * Creates a student and adds it to its group in one transaction
      * @param student
      * @throws DAOException
      */
     public void create(Student student) {
-        createStudent(student);
-        addToGroup(student);
+        unitOfWork.run(connexion -> {
+            createStudent(student);
+            addToGroup(student);
+        });
     }
 
     /**
-     * Creates a student into databse
-     * @param student
+     * Creates students in one transaction with one lookup of the existing email addresses and batched inserts,
+     * the students whose email address is already used are left out
+     * @param students
+     * @return email addresses already used
      * @throws DAOException
      */
-    public void createStudent(Student student) throws DAOException {
-        Connection        connexion         = null;
+    public Set<String> importStudents(List<Student> students) throws DAOException {
+        if (students.isEmpty()) {
+            return new HashSet<String>();
+        }
+
+        return unitOfWork.execute(connexion -> {
+            List<Object>  emailAddresses = new ArrayList<Object>();
+            List<Student> created        = new ArrayList<Student>();
+            Set<String>   existing;
+
+            for (Student student : students) {
+                emailAddresses.add(student.getEmailAddress());
+            }
+
+            existing = new HashSet<String>(queryList(connexion, SELECT_EXISTING_EMAILS + placeholders(emailAddresses.size()), resultSet -> resultSet.getString(1).toLowerCase(), emailAddresses.toArray()));
+
+            for (Student student : students) {
+                if (!existing.contains(student.getEmailAddress())) {
+                    created.add(student);
+                }
+            }
+
+            if (!created.isEmpty()) {
+                insertStudents(connexion, created);
+                insertGroups(connexion, created);
+            }
+
+            return existing;
+        });
+    }
+
+    /**
+     * Inserts students in one batch and sets their generated ids
+     * @param connexion
+     * @param students
+     * @throws SQLException
+     */
+    private static void insertStudents(Connection connexion, List<Student> students) throws SQLException {
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        Administrator     creator           = new Administrator(student.getCreator());
+        int               index             = 0;
 
         try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, INSERT_STUDENT, true, student.getLastName(), student.getFirstName(), student.getEmailAddress(), student.getPassword(), creator.getId());
-            preparedStatement.executeUpdate();
+            preparedStatement = connexion.prepareStatement(INSERT_STUDENT, Statement.RETURN_GENERATED_KEYS);
+
+            for (Student student : students) {
+                bind(preparedStatement, student.getLastName(), student.getFirstName(), student.getEmailAddress(), student.getPassword(), new Administrator(student.getCreator()).getId());
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
             resultSet = preparedStatement.getGeneratedKeys();
 
-            if (resultSet.next()) {
-                student.setId(resultSet.getLong(1));
+            while (resultSet.next() && (index < students.size())) {
+                students.get(index++).setId(resultSet.getLong(1));
             }
+        }
+        finally {
+            silentClosure(resultSet);
+            silentClosure(preparedStatement);
+        }
 
+        if (index != students.size()) {
+            throw new SQLException("Identifiants générés manquants : " + index + " sur " + students.size() + ".");
         }
-        catch (SQLException e) {
-            throw new DAOException(e);
+    }
+
+    /**
+     * Adds students to their group in one batch
+     * @param connexion
+     * @param students
+     * @throws SQLException
+     */
+    private static void insertGroups(Connection connexion, List<Student> students) throws SQLException {
+        PreparedStatement preparedStatement = null;
+
+        try {
+            preparedStatement = connexion.prepareStatement(INSERT_GROUP);
+
+            for (Student student : students) {
+                bind(preparedStatement, student.getId(), new Group(student.getGroup()).getId(), new Administrator(student.getCreator()).getId());
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(preparedStatement);
         }
     }
 
     /**
-     * Add the user to a group into database
+     * Creates a student into databse
      * @param student
      * @throws DAOException
      */
-    public void addToGroup(Student student) throws DAOException {
+    public void createStudent(Student student) throws DAOException {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
+        ResultSet         resultSet         = null;
         Administrator     creator           = new Administrator(student.getCreator());
-        Group             group             = new Group(student.getGroup());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, INSERT_GROUP, true, student.getId(), group.getId(), creator.getId());
+            preparedStatement = prepare(connexion, INSERT_STUDENT, student.getLastName(), student.getFirstName(), student.getEmailAddress(), student.getPassword(), creator.getId());
             preparedStatement.executeUpdate();
+            resultSet = preparedStatement.getGeneratedKeys();
+
+            if (resultSet.next()) {
+                student.setId(resultSet.getLong(1));
+            }
+
         }
         catch (SQLException e) {
             throw new DAOException(e);
@@ -101,25 +185,20 @@ public class StudentDaoImpl implements StudentDao {
     }
 
     /**
-     * Check student login into database
-     * @return student
+     * Add the user to a group into database
+     * @param student
      * @throws DAOException
      */
-    public Student checkLogin(Student student) throws DAOException {
-        Student           student2          = new Student();
+    public void addToGroup(Student student) throws DAOException {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
-        ResultSet         resultSet;
+        Administrator     creator           = new Administrator(student.getCreator());
+        Group             group             = new Group(student.getGroup());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_LOGIN, true, student.getEmailAddress(), student.getPassword());
-            resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                student2 = map(resultSet);
-                student2.setPassword(student.getPassword());
-            }
+            preparedStatement = prepare(connexion, INSERT_GROUP, student.getId(), group.getId(), creator.getId());
+            preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
             throw new DAOException(e);
@@ -127,8 +206,6 @@ public class StudentDaoImpl implements StudentDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
-
-        return student2;
     }
 
     /**
@@ -136,56 +213,31 @@ public class StudentDaoImpl implements StudentDao {
      * @param student
      * @return students
      */
-    public Set<Student> search(Student student) throws DAOException {
-        Set<Student>      students          = new TreeSet<Student>();
+    public Page<Student> search(Student student, PageRequest pageRequest) throws DAOException {
+        List<Student>     students          = new ArrayList<Student>();
         Group             group             = new Group(student.getGroup());
+        SearchQuery       query             = new SearchQuery();
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_ALL;
+        Integer           total             = null;
+        Page<Student>     page;
+
+        query.equal("gnw_utilisateur.id", student.getId())
+             .like("gnw_utilisateur.nom", student.getLastName())
+             .like("gnw_utilisateur.prenom", student.getFirstName())
+             .like("gnw_utilisateur.adresse_mail", student.getEmailAddress())
+             .equal("gnw_groupe.id", group.getId());
 
         try {
             connexion = daoFactory.getConnection();
 
-            if (student.getId() != null) {
-                SQLQuery += " AND gnw_utilisateur.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.id IS NOT ?";
-            }
-
-            if (student.getLastName() != null) {
-                SQLQuery += " AND gnw_utilisateur.nom LIKE ?";
-                student.setLastName("%" + student.getLastName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.nom IS NOT ?";
-            }
-
-            if (student.getFirstName() != null) {
-                SQLQuery += " AND gnw_utilisateur.prenom LIKE ?";
-                student.setFirstName("%" + student.getFirstName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.prenom IS NOT ?";
+            if (pageRequest.isCountTotal()) {
+                total = count(connexion, query.toSql(COUNT_ALL), query.getParameters());
             }
 
-            if (student.getEmailAddress() != null) {
-                SQLQuery += " AND gnw_utilisateur.adresse_mail LIKE ?";
-                student.setEmailAddress("%" + student.getEmailAddress() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.adresse_mail IS NOT ?";
-            }
-
-            if (group.getId() != null) {
-                SQLQuery += " AND gnw_groupe.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_groupe.id IS NOT ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, student.getId(), student.getLastName(), student.getFirstName(), student.getEmailAddress(), group.getId());
+            query.after("gnw_utilisateur.nom", "gnw_utilisateur.id", pageRequest);
+            preparedStatement = prepare(connexion, query.toSql(SELECT_ALL, " ORDER BY gnw_utilisateur.nom, gnw_utilisateur.id LIMIT ?"), query.getParameters(pageRequest.getSize() + 1));
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -200,15 +252,25 @@ public class StudentDaoImpl implements StudentDao {
             silentClosures(resultSet, preparedStatement, connexion);
         }
 
-        return students;
+        page = new Page<Student>(students, pageRequest.getSize(), total);
+
+        if (page.isHasNext()) {
+            page.setNextCursor(PageRequest.cursor(page.getLast().getLastName(), page.getLast().getId()));
+        }
+
+        return page;
     }
 
     /**
-     * Edits a student into database
+     * Edits a student into database, the cached gradebook and logins are evicted once committed
      * @param student
      */
     public void edit(Student student) {
-        editProfile(student);
+        unitOfWork.run(connexion -> editProfile(student));
+
+        // The gradebook follows the group of the student
+        daoFactory.getGradebookCache().remove(student.getId());
+        daoFactory.getLoginCache().clear();
     }
 
     /**
@@ -223,9 +285,9 @@ public class StudentDaoImpl implements StudentDao {
         Group             group             = new Group(student.getGroup());
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_STUDENT, true, student.getLastName(), student.getFirstName(), student.getEmailAddress(), editor.getId(), student.getId());
+            preparedStatement = prepare(connexion, UPDATE_STUDENT, student.getLastName(), student.getFirstName(), student.getEmailAddress(), editor.getId(), student.getId());
             preparedStatement.executeUpdate();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_STUDENT_GROUP, true, group.getId(), editor.getId(), student.getId());
+            preparedStatement = prepare(connexion, UPDATE_STUDENT_GROUP, group.getId(), editor.getId(), student.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -248,7 +310,7 @@ public class StudentDaoImpl implements StudentDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_STUDENT_PASSWORD, true, student.getPassword(), editor.getId(), student.getId());
+            preparedStatement = prepare(connexion, UPDATE_STUDENT_PASSWORD, student.getPassword(), editor.getId(), student.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -257,6 +319,8 @@ public class StudentDaoImpl implements StudentDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
+
+        daoFactory.getLoginCache().clear();
     }
 
     /**
@@ -272,7 +336,7 @@ public class StudentDaoImpl implements StudentDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_BY_ID, true, student.getId());
+            preparedStatement = prepare(connexion, SELECT_BY_ID, student.getId());
             resultSet = preparedStatement.executeQuery();
 
             if (resultSet.next()) {
@@ -300,20 +364,14 @@ public class StudentDaoImpl implements StudentDao {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_COUNT_BY_EMAIL;
+        SearchQuery       query             = new SearchQuery(student.getEmailAddress());
         int               status;
 
+        query.notEqual("gnw_utilisateur.id", student.getId());
+
         try {
             connexion = daoFactory.getConnection();
-
-            if (student.getId() == null) {
-                SQLQuery += " AND gnw_utilisateur.id IS NOT ?";
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.id != ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, student.getEmailAddress(), student.getId());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_COUNT_BY_EMAIL), query.getParameters());
             resultSet = preparedStatement.executeQuery();
             resultSet.next();
             status = resultSet.getInt(1);
@@ -329,18 +387,62 @@ public class StudentDaoImpl implements StudentDao {
     }
 
     /**
-     * Returns all student informations
+     * Returns all student informations, the gradebook comes from the cache when no test of the group changed since it was built
+     * and the group from the cache of the groups
      * @param student
      * @return student
      */
     public Student getAll(Student student) {
-        TestDaoImpl testDao = new TestDaoImpl(daoFactory);
+        LRUCache<Long, Gradebook> gradebookCache = daoFactory.getGradebookCache();
+        long                      generation     = gradebookCache.getGeneration();
+        Gradebook                 gradebook      = gradebookCache.get(student.getId());
+
+        if (student.getGroup() != null) {
+            student.setGroup(new GroupDaoImpl(daoFactory).get(student.getGroup()));
+        }
+
+        if (gradebook == null) {
+            gradebook = new TestDaoImpl(daoFactory).getGradebook(student);
+            gradebookCache.put(student.getId(), gradebook, generation);
+        }
 
-        student.setGradebook(testDao.getGradebook(student));
+        student.setGradebook(new Gradebook(gradebook));
 
         return student;
     }
 
+    /**
+     * Builds and caches the gradebooks of every student of a group, a gradebook evicted while it is built is not stored
+     * @param group
+     * @return number of gradebooks built
+     * @throws DAOException
+     */
+    public int warmGradebooks(Group group) throws DAOException {
+        LRUCache<Long, Gradebook> gradebookCache = daoFactory.getGradebookCache();
+        TestDaoImpl               testDao        = new TestDaoImpl(daoFactory);
+        Connection                connexion      = null;
+        List<Student>             students;
+
+        try {
+            connexion = daoFactory.getConnection();
+            students = queryList(connexion, SELECT_BY_GROUP, StudentDaoImpl::map, group.getId());
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+
+        for (Student student : students) {
+            long generation = gradebookCache.getGeneration();
+
+            gradebookCache.put(student.getId(), testDao.getGradebook(student), generation);
+        }
+
+        return students.size();
+    }
+
     /**
      * Deletes a student into database
      * @param student
@@ -354,7 +456,7 @@ public class StudentDaoImpl implements StudentDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, DELETE_STUDENT, true, editor.getId(), student.getId());
+            preparedStatement = prepare(connexion, DELETE_STUDENT, editor.getId(), student.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -363,25 +465,9 @@ public class StudentDaoImpl implements StudentDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
-    }
-
-    /**
-     * Prepare a sql query
-     * @param connexion
-     * @param sql
-     * @param returnGeneratedKeys
-     * @param objets
-     * @return preparedStatement
-     * @throws SQLException
-     */
-    public static PreparedStatement initPreparedQuery(Connection connexion, String sql, boolean returnGeneratedKeys, Object... objets) throws SQLException {
-        PreparedStatement preparedStatement = connexion.prepareStatement(sql, returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
-
-        for (int i = 0; i < objets.length; i++) {
-            preparedStatement.setObject(i + 1, objets[i]);
-        }
 
-        return preparedStatement;
+        daoFactory.getGradebookCache().remove(student.getId());
+        daoFactory.getLoginCache().clear();
     }
 
     /**
@@ -4,9 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 import static dao.DAOUtility.*;
+import static dao.QueryExecutor.*;
 
 import java.util.Set;
 import java.util.TreeSet;
@@ -37,20 +37,18 @@ public class SubjectDaoImpl implements SubjectDao {
      * @throws DAOException
      */
     public void create(Subject subject) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     creator           = new Administrator(subject.getCreator());
+        Connection    connexion = null;
+        Administrator creator   = new Administrator(subject.getCreator());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, INSERT, true, subject.getName(), creator.getId());
-            preparedStatement.executeUpdate();
+            update(connexion, INSERT, subject.getName(), creator.getId());
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
     }
 
@@ -65,32 +63,20 @@ public class SubjectDaoImpl implements SubjectDao {
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
         Set<Subject>      subjects          = new TreeSet<Subject>();
-        String            SQLQuery          = SELECT_ALL;
+        SearchQuery       query             = new SearchQuery();
+
+        query.equal("gnw_matiere.id", subject.getId())
+             .like("gnw_matiere.nom", subject.getName());
 
         try {
             connexion = daoFactory.getConnection();
-
-            if (subject.getId() != null) {
-                SQLQuery += " AND gnw_matiere.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_matiere.id IS NOT ?";
-            }
-
-            if (subject.getName() != null) {
-                SQLQuery += " AND gnw_matiere.nom LIKE ?";
-                subject.setName("%" + subject.getName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_matiere.nom IS NOT ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, subject.getId(), subject.getName());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_ALL), query.getParameters());
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
                 subject = map(resultSet);
                 subjects.add(subject);
+                daoFactory.getSubjectCache().put(subject.getId(), new Subject(subject));
             }
         }
         catch (SQLException e) {
@@ -109,20 +95,20 @@ public class SubjectDaoImpl implements SubjectDao {
      * @throws DAOException
      */
     public void edit(Subject subject) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     editor            = new Administrator(subject.getEditor());
+        Connection    connexion = null;
+        Administrator editor    = new Administrator(subject.getEditor());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE, true, subject.getName(), editor.getId(), subject.getId());
-            preparedStatement.executeUpdate();
+            update(connexion, UPDATE, subject.getName(), editor.getId(), subject.getId());
+            daoFactory.getSubjectCache().remove(subject.getId());
+            daoFactory.getTeacherCache().clear();
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
     }
 
@@ -135,20 +121,14 @@ public class SubjectDaoImpl implements SubjectDao {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_COUNT_BY_NAME;
+        SearchQuery       query             = new SearchQuery(subject.getName());
         int               status            = 0;
 
+        query.notEqual("id", subject.getId());
+
         try {
             connexion = daoFactory.getConnection();
-
-            if (subject.getId() == null) {
-                SQLQuery += " AND id IS NOT ?";
-            }
-            else {
-                SQLQuery += " AND id != ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, subject.getName(), subject.getId());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_COUNT_BY_NAME), query.getParameters());
             resultSet = preparedStatement.executeQuery();
             resultSet.next();
             status = resultSet.getInt(1);
@@ -164,31 +144,34 @@ public class SubjectDaoImpl implements SubjectDao {
     }
 
     /**
-     * Returns a subject into database
+     * Returns a subject, from the cache when it has already been read
      * @param subject
      * @return subject
      * @throws DAOException
      */
     public Subject get(Subject subject) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
+        Connection connexion = null;
+        Subject    found     = null;
+        Subject    cached    = daoFactory.getSubjectCache().get(subject.getId());
+
+        if (cached != null) {
+            return new Subject(cached);
+        }
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_BY_ID, true, subject.getId());
-            resultSet = preparedStatement.executeQuery();
+            found = queryOne(connexion, SELECT_BY_ID, SubjectDaoImpl::map, subject.getId());
 
-            if (resultSet.next()) {
-                subject = map(resultSet);
+            if (found != null) {
+                subject = found;
+                daoFactory.getSubjectCache().put(subject.getId(), new Subject(subject));
             }
-
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
 
         return subject;
@@ -201,42 +184,23 @@ public class SubjectDaoImpl implements SubjectDao {
      * @throws DAOException
      */
     public void delete(Subject subject) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     editor            = new Administrator(subject.getEditor());
+        Connection    connexion = null;
+        Administrator editor    = new Administrator(subject.getEditor());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, DELETE, true, editor.getId(), subject.getId());
-            preparedStatement.executeUpdate();
+            update(connexion, DELETE, editor.getId(), subject.getId());
+            daoFactory.getSubjectCache().remove(subject.getId());
+            daoFactory.getTeacherCache().clear();
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(connexion);
         }
     }
 
-    /**
-     * Prepares a SQL query
-     * @param connexion
-     * @param sql
-     * @param returnGeneratedKeys
-     * @param objets
-     * @return preparedStatement
-     * @throws SQLException
-     */
-    public static PreparedStatement initPreparedQuery(Connection connexion, String sql, boolean returnGeneratedKeys, Object... objets) throws SQLException {
-        PreparedStatement preparedStatement = connexion.prepareStatement(sql, returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
-
-        for (int i = 0; i < objets.length; i++) {
-            preparedStatement.setObject(i + 1, objets[i]);
-        }
-
-        return preparedStatement;
-    }
-
     /**
      * Maps a Subject
      * @param resultSet
@@ -1,7 +1,5 @@
 package dao;
 
-import java.util.Set;
-
 import beans.Teacher;
 
 public interface TeacherDao {
@@ -12,12 +10,13 @@ public interface TeacherDao {
     void create(Teacher teacher);
 
     /**
-     * Searches one or more teachers into database
+     * Searches a page of teachers into database, sorted by last name then id
      * @param teacher
-     * @return Set<Teacher>
+     * @param pageRequest
+     * @return Page<Teacher>
      * @throws DAOException
      */
-    Set<Teacher> search(Teacher teacher) throws DAOException;
+    Page<Teacher> search(Teacher teacher, PageRequest pageRequest) throws DAOException;
 
     /**
      * Edits a teacher into database
@@ -42,6 +41,14 @@ public interface TeacherDao {
      */
     Teacher get(Teacher teacher) throws DAOException;
 
+    /**
+     * Returns a teacher with its groups and subjects, from the cache when they have already been read
+     * @param teacher
+     * @return Teacher
+     * @throws DAOException
+     */
+    Teacher getLinks(Teacher teacher) throws DAOException;
+
     /**
      * Deletes a teacher into database
      * @param teacher
@@ -50,10 +57,10 @@ public interface TeacherDao {
     void delete(Teacher teacher) throws DAOException;
 
     /**
-     * Checks teacher login into database
-     * @param teacher
-     * @return Teacher
+     * Deletes the subject and group links retired for longer than the retention
+     * @param retentionDays
+     * @return int number of links deleted
      * @throws DAOException
      */
-    Teacher checkLogin(Teacher teacher) throws DAOException;
+    int purgeRetiredLinks(int retentionDays) throws DAOException;
 }
@@ -1,12 +1,21 @@
 package dao;
 
+import static dao.DAOUtility.silentClosure;
 import static dao.DAOUtility.silentClosures;
+import static dao.QueryExecutor.bind;
+import static dao.QueryExecutor.count;
+import static dao.QueryExecutor.placeholders;
+import static dao.QueryExecutor.prepare;
+import static dao.QueryExecutor.queryList;
+import static dao.QueryExecutor.update;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -17,19 +26,24 @@ import beans.Group;
 
 public class TeacherDaoImpl implements TeacherDao {
     private DAOFactory daoFactory;
+    private UnitOfWork unitOfWork;
     private static final String SELECT_COUNT_BY_EMAIL = "SELECT COUNT(id) FROM gnw_utilisateur WHERE profil = 1 AND adresse_mail = ?";
-    private static final String SELECT_ALL            = "SELECT id, nom, prenom, adresse_mail  FROM gnw_utilisateur WHERE profil = 1 AND date_suppr IS NULL";
+    private static final String SELECT_ALL            = "SELECT id, nom, prenom, adresse_mail FROM gnw_utilisateur WHERE profil = 1 AND date_suppr IS NULL";
+    private static final String COUNT_ALL             = "SELECT COUNT(gnw_utilisateur.id) FROM gnw_utilisateur WHERE profil = 1 AND date_suppr IS NULL";
     private static final String SELECT_SUBJECTS        = "SELECT gnw_professeur_matiere.fk_matiere as matiereId, gnw_matiere.nom as matiereNom FROM gnw_professeur_matiere, gnw_matiere WHERE gnw_professeur_matiere.date_suppr IS NULL AND gnw_professeur_matiere.fk_professeur = ? AND gnw_professeur_matiere.fk_matiere = gnw_matiere.id";
     private static final String SELECT_GROUPS         = "SELECT gnw_professeur_groupe.fk_groupe as groupeId, gnw_groupe.nom as groupeNom FROM gnw_professeur_groupe, gnw_groupe WHERE gnw_professeur_groupe.date_suppr IS NULL AND gnw_professeur_groupe.fk_professeur = ? AND gnw_professeur_groupe.fk_groupe = gnw_groupe.id";
     private static final String SELECT_BY_ID          = "SELECT id, nom, prenom, adresse_mail FROM gnw_utilisateur WHERE id = ? AND date_suppr IS NULL";
-    private static final String SELECT_LOGIN          = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail FROM gnw_utilisateur WHERE gnw_utilisateur.profil = 1 AND gnw_utilisateur.adresse_mail = ? AND gnw_utilisateur.mot_de_passe = ?";
     private static final String SELECT_TEACHER        = "INSERT INTO gnw_utilisateur ( nom, prenom, adresse_mail, mot_de_passe, profil, fk_utilisateur ) VALUES (?, ?, ?, ?, 1, ?)";
     private static final String INSERT_SUBJECT         = "INSERT INTO gnw_professeur_matiere ( fk_professeur, fk_matiere, fk_utilisateur ) VALUES (?, ?, ?)";
     private static final String INSERT_GROUP          = "INSERT INTO gnw_professeur_groupe ( fk_professeur, fk_groupe, fk_utilisateur ) VALUES (?, ?, ?)";
     private static final String UPDATE_TEACHER        = "UPDATE gnw_utilisateur SET nom = ?, prenom = ?, adresse_mail = ?, fk_utilisateur = ? WHERE id = ?";
     private static final String UPDATE_PASSWORD       = "UPDATE gnw_utilisateur SET mot_de_passe = ?, fk_utilisateur = ? WHERE id = ?";
-    private static final String UPDATE_SUBJECT         = "UPDATE gnw_professeur_matiere SET date_suppr = now(), fk_utilisateur = ? WHERE fk_professeur = ?";
-    private static final String UPDATE_GROUP          = "UPDATE gnw_professeur_groupe SET date_suppr = now(), fk_utilisateur = ? WHERE fk_professeur = ?";
+    private static final String SELECT_SUBJECT_IDS    = "SELECT fk_matiere FROM gnw_professeur_matiere WHERE fk_professeur = ? AND date_suppr IS NULL";
+    private static final String SELECT_GROUP_IDS      = "SELECT fk_groupe FROM gnw_professeur_groupe WHERE fk_professeur = ? AND date_suppr IS NULL";
+    private static final String RETIRE_SUBJECTS       = "UPDATE gnw_professeur_matiere SET date_suppr = now(), fk_utilisateur = ? WHERE fk_professeur = ? AND date_suppr IS NULL AND fk_matiere IN ";
+    private static final String RETIRE_GROUPS         = "UPDATE gnw_professeur_groupe SET date_suppr = now(), fk_utilisateur = ? WHERE fk_professeur = ? AND date_suppr IS NULL AND fk_groupe IN ";
+    private static final String PURGE_SUBJECTS        = "DELETE FROM gnw_professeur_matiere WHERE date_suppr < now() - INTERVAL ? DAY";
+    private static final String PURGE_GROUPS          = "DELETE FROM gnw_professeur_groupe WHERE date_suppr < now() - INTERVAL ? DAY";
     private static final String DELETE_TEACHER        = "UPDATE gnw_utilisateur SET date_suppr = now(), fk_utilisateur = ? WHERE id = ?";
 
     /**
@@ -38,16 +52,19 @@ public class TeacherDaoImpl implements TeacherDao {
      */
     TeacherDaoImpl(DAOFactory daoFactory) {
         this.daoFactory = daoFactory;
+        this.unitOfWork = new UnitOfWork(daoFactory);
     }
 
     /**
-     * Creates a teacher into database
+     * Creates a teacher, its subjects and groups in one transaction
      * @param teacher
      */
     public void create(Teacher teacher) {
-        createTeacher(teacher);
-        addSubjects(teacher, true);
-        addGroups(teacher, true);
+        unitOfWork.run(connexion -> {
+            createTeacher(teacher);
+            addSubjects(teacher, true);
+            addGroups(teacher, true);
+        });
     }
 
     /**
@@ -63,7 +80,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_TEACHER, true, teacher.getLastName(), teacher.getFirstName(), teacher.getEmailAddress(), teacher.getPassword(), creator.getId());
+            preparedStatement = prepare(connexion, SELECT_TEACHER, teacher.getLastName(), teacher.getFirstName(), teacher.getEmailAddress(), teacher.getPassword(), creator.getId());
             preparedStatement.executeUpdate();
             resultSet = preparedStatement.getGeneratedKeys();
 
@@ -103,7 +120,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
             for (Object m : subjects) {
                 Subject subject = (Subject) m;
-                preparedStatement = initPreparedQuery(connexion, INSERT_SUBJECT, true, teacher.getId(), subject.getId(), administrator.getId());
+                preparedStatement = prepare(connexion, INSERT_SUBJECT, teacher.getId(), subject.getId(), administrator.getId());
                 preparedStatement.executeUpdate();
             }
         }
@@ -139,7 +156,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
             for (Object g : groups) {
                 Group group = (Group) g;
-                preparedStatement = initPreparedQuery(connexion, INSERT_GROUP, true, teacher.getId(), group.getId(), administrator.getId());
+                preparedStatement = prepare(connexion, INSERT_GROUP, teacher.getId(), group.getId(), administrator.getId());
                 preparedStatement.executeUpdate();
             }
         }
@@ -154,51 +171,33 @@ public class TeacherDaoImpl implements TeacherDao {
     /**
      * Searches one or more teachers into database
      * @param teacher
-     * @return teachers
+     * @param pageRequest
+     * @return page
      * @throws DAOException
      */
-    public Set<Teacher> search(Teacher teacher) throws DAOException {
-        Set<Teacher>      teachers          = new TreeSet<Teacher>();
+    public Page<Teacher> search(Teacher teacher, PageRequest pageRequest) throws DAOException {
+        List<Teacher>     teachers          = new ArrayList<Teacher>();
+        SearchQuery       query             = new SearchQuery();
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_ALL;
+        Integer           total             = null;
+        Page<Teacher>     page;
+
+        query.equal("gnw_utilisateur.id", teacher.getId())
+             .like("gnw_utilisateur.nom", teacher.getLastName())
+             .like("gnw_utilisateur.prenom", teacher.getFirstName())
+             .like("gnw_utilisateur.adresse_mail", teacher.getEmailAddress());
 
         try {
             connexion = daoFactory.getConnection();
 
-            if (teacher.getId() != null) {
-                SQLQuery += " AND gnw_utilisateur.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.id IS NOT ?";
+            if (pageRequest.isCountTotal()) {
+                total = count(connexion, query.toSql(COUNT_ALL), query.getParameters());
             }
 
-            if (teacher.getLastName() != null) {
-                SQLQuery += " AND gnw_utilisateur.nom LIKE ?";
-                teacher.setLastName("%" + teacher.getLastName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.nom IS NOT ?";
-            }
-
-            if (teacher.getFirstName() != null) {
-                SQLQuery += " AND gnw_utilisateur.prenom LIKE ?";
-                teacher.setFirstName("%" + teacher.getFirstName() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.prenom IS NOT ?";
-            }
-
-            if (teacher.getEmailAddress() != null) {
-                SQLQuery += " AND gnw_utilisateur.adresse_mail LIKE ?";
-                teacher.setEmailAddress("%" + teacher.getEmailAddress() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.adresse_mail IS NOT ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, teacher.getId(), teacher.getLastName(), teacher.getFirstName(), teacher.getEmailAddress());
+            query.after("gnw_utilisateur.nom", "gnw_utilisateur.id", pageRequest);
+            preparedStatement = prepare(connexion, query.toSql(SELECT_ALL, " ORDER BY gnw_utilisateur.nom, gnw_utilisateur.id LIMIT ?"), query.getParameters(pageRequest.getSize() + 1));
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -213,104 +212,127 @@ public class TeacherDaoImpl implements TeacherDao {
             silentClosures(resultSet, preparedStatement, connexion);
         }
 
-        return teachers;
+        page = new Page<Teacher>(teachers, pageRequest.getSize(), total);
+
+        if (page.isHasNext()) {
+            page.setNextCursor(PageRequest.cursor(page.getLast().getLastName(), page.getLast().getId()));
+        }
+
+        return page;
     }
 
     /**
-     * Edits a teacher into database
+     * Edits a teacher, its password, subjects and groups in one transaction
      * @param teacher
      * @return teacher
      * @throws DAOException
      */
     public void edit(Teacher teacher) {
-        // Edits teacher profile
-        editProfile(teacher);
+        unitOfWork.run(connexion -> {
+            // Edits teacher profile
+            editProfile(teacher);
 
-        // Edite teacher password
-        if (teacher.getPassword() != null) {
-            editPassword(teacher);
-        }
+            // Edite teacher password
+            if (teacher.getPassword() != null) {
+                editPassword(teacher);
+            }
 
-        //  Delete teacher subjects and groups
-        deleteSubjects(teacher);
-        deleteGroups(teacher);
+            // Only the subjects and groups which changed are retired or added
+            Set<Long> subjectIds = new HashSet<Long>();
+            Set<Long> groupIds   = new HashSet<Long>();
 
-        // Add teacher subject and groups
-        if (teacher.getSubjects() != null) {
-            addSubjects(teacher, false);
-        }
+            if (teacher.getSubjects() != null) {
+                for (Subject subject : teacher.getSubjects()) {
+                    subjectIds.add(subject.getId());
+                }
+            }
 
-        if (teacher.getGroups() != null) {
-            addGroups(teacher, false);
-        }
+            if (teacher.getGroups() != null) {
+                for (Group group : teacher.getGroups()) {
+                    groupIds.add(group.getId());
+                }
+            }
+
+            editLinks(connexion, teacher, subjectIds, SELECT_SUBJECT_IDS, RETIRE_SUBJECTS, INSERT_SUBJECT);
+            editLinks(connexion, teacher, groupIds, SELECT_GROUP_IDS, RETIRE_GROUPS, INSERT_GROUP);
+        });
+
+        // Cached logins are keyed by email address, which may be the one changed
+        daoFactory.getLoginCache().clear();
+        daoFactory.getTeacherCache().remove(teacher.getId());
     }
 
     /**
-     * Edits teacher profile into database
+     * Retires the links of a teacher which are no longer wanted and adds the new ones, one statement each
+     * @param connexion
      * @param teacher
-     * @return teacher
-     * @throws DAOException
+     * @param wantedIds
+     * @param selectSql
+     * @param retireSql
+     * @param insertSql
+     * @throws SQLException
      */
-    private Teacher editProfile(Teacher teacher) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
+    private static void editLinks(Connection connexion, Teacher teacher, Set<Long> wantedIds, String selectSql, String retireSql, String insertSql) throws SQLException {
         Administrator     editor            = new Administrator(teacher.getEditor());
+        Set<Long>         currentIds        = new HashSet<Long>(queryList(connexion, selectSql, resultSet -> resultSet.getLong(1), teacher.getId()));
+        Set<Long>         retiredIds        = new TreeSet<Long>(currentIds);
+        Set<Long>         addedIds          = new TreeSet<Long>(wantedIds);
+        List<Object>      parameters        = new ArrayList<Object>();
+        PreparedStatement preparedStatement = null;
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_TEACHER, true, teacher.getLastName(), teacher.getFirstName(), teacher.getEmailAddress(), editor.getId(), teacher.getId());
-            preparedStatement.executeUpdate();
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
+        retiredIds.removeAll(wantedIds);
+        addedIds.removeAll(currentIds);
+
+        if (!retiredIds.isEmpty()) {
+            parameters.add(editor.getId());
+            parameters.add(teacher.getId());
+            parameters.addAll(retiredIds);
+            update(connexion, retireSql + placeholders(retiredIds.size()), parameters.toArray());
         }
-        finally {
-            silentClosures(preparedStatement, connexion);
+
+        if (addedIds.isEmpty()) {
+            return;
         }
 
-        return teacher;
-    }
+        try {
+            preparedStatement = connexion.prepareStatement(insertSql);
 
-    /**
-     * Edits teacher password into database
-     * @param teacher
-     * @return teacher
-     * @throws DAOException
-     */
-    private Teacher editPassword(Teacher teacher) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Administrator     editor            = new Administrator(teacher.getEditor());
+            for (Long id : addedIds) {
+                bind(preparedStatement, teacher.getId(), id, editor.getId());
+                preparedStatement.addBatch();
+            }
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_PASSWORD, true, teacher.getPassword(), editor.getId(), teacher.getId());
-            preparedStatement.executeUpdate();
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
+            preparedStatement.executeBatch();
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(preparedStatement);
         }
+    }
 
-        return teacher;
+    /**
+     * Deletes the subject and group links retired for longer than the retention
+     * @param retentionDays
+     * @return number of links deleted
+     * @throws DAOException
+     */
+    public int purgeRetiredLinks(int retentionDays) throws DAOException {
+        return unitOfWork.execute(connexion -> update(connexion, PURGE_SUBJECTS, retentionDays) + update(connexion, PURGE_GROUPS, retentionDays));
     }
 
     /**
-     * Deletes teacher groups into database
+     * Edits teacher profile into database
      * @param teacher
      * @return teacher
      * @throws DAOException
      */
-    private void deleteGroups(Teacher teacher) throws DAOException {
+    private Teacher editProfile(Teacher teacher) throws DAOException {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         Administrator     editor            = new Administrator(teacher.getEditor());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_GROUP, true, editor.getId(), teacher.getId());
+            preparedStatement = prepare(connexion, UPDATE_TEACHER, teacher.getLastName(), teacher.getFirstName(), teacher.getEmailAddress(), editor.getId(), teacher.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -319,22 +341,24 @@ public class TeacherDaoImpl implements TeacherDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
+
+        return teacher;
     }
 
     /**
-     * Deletes teacher subjects into database
+     * Edits teacher password into database
      * @param teacher
      * @return teacher
      * @throws DAOException
      */
-    private Teacher deleteSubjects(Teacher teacher) throws DAOException {
+    private Teacher editPassword(Teacher teacher) throws DAOException {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         Administrator     editor            = new Administrator(teacher.getEditor());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_SUBJECT, true, editor.getId(), teacher.getId());
+            preparedStatement = prepare(connexion, UPDATE_PASSWORD, teacher.getPassword(), editor.getId(), teacher.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -348,38 +372,22 @@ public class TeacherDaoImpl implements TeacherDao {
     }
 
     /**
-     * Checks teacher login into database
+     * Returns a teacher with its groups and subjects, from the cache when they have already been read
      * @param teacher
-     * @return teacher2
+     * @return teacher
      * @throws DAOException
      */
-    public Teacher checkLogin(Teacher teacher) throws DAOException {
-        Teacher           teacher2          = new Teacher();
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
+    public Teacher getLinks(Teacher teacher) throws DAOException {
+        Teacher cached = daoFactory.getTeacherCache().get(teacher.getId());
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_LOGIN, true, teacher.getEmailAddress(), teacher.getPassword());
-            resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                teacher2 = mapProfesseur(resultSet);
-                teacher2.setPassword(teacher.getPassword());
-            }
-
-            teacher2.setGroups(getGroups(teacher2));
-            teacher2.setSubjects(getSubjects(teacher2));
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
+        if (cached == null) {
+            cached = new Teacher(teacher);
+            cached.setGroups(getGroups(teacher));
+            cached.setSubjects(getSubjects(teacher));
+            daoFactory.getTeacherCache().put(teacher.getId(), cached);
         }
 
-        return teacher2;
+        return new Teacher(cached);
     }
 
     /**
@@ -392,20 +400,14 @@ public class TeacherDaoImpl implements TeacherDao {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_COUNT_BY_EMAIL;
+        SearchQuery       query             = new SearchQuery(teacher.getEmailAddress());
         int               status            = 0;
 
+        query.notEqual("gnw_utilisateur.id", teacher.getId());
+
         try {
             connexion = daoFactory.getConnection();
-
-            if (teacher.getId() == null) {
-                SQLQuery += " AND gnw_utilisateur.id IS NOT ?";
-            }
-            else {
-                SQLQuery += " AND gnw_utilisateur.id != ?";
-            }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, teacher.getEmailAddress(), teacher.getId());
+            preparedStatement = prepare(connexion, query.toSql(SELECT_COUNT_BY_EMAIL), query.getParameters());
             resultSet = preparedStatement.executeQuery();
             resultSet.next();
             status = resultSet.getInt(1);
@@ -433,7 +435,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_BY_ID, true, teacher.getId());
+            preparedStatement = prepare(connexion, SELECT_BY_ID, teacher.getId());
             resultSet = preparedStatement.executeQuery();
 
             if (resultSet.next()) {
@@ -467,7 +469,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_SUBJECTS, true, teacher.getId());
+            preparedStatement = prepare(connexion, SELECT_SUBJECTS, teacher.getId());
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -500,7 +502,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_GROUPS, true, teacher.getId());
+            preparedStatement = prepare(connexion, SELECT_GROUPS, teacher.getId());
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -531,7 +533,7 @@ public class TeacherDaoImpl implements TeacherDao {
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, DELETE_TEACHER, true, editor.getId(), teacher.getId());
+            preparedStatement = prepare(connexion, DELETE_TEACHER, editor.getId(), teacher.getId());
             preparedStatement.executeUpdate();
         }
         catch (SQLException e) {
@@ -540,25 +542,9 @@ public class TeacherDaoImpl implements TeacherDao {
         finally {
             silentClosures(preparedStatement, connexion);
         }
-    }
-
-    /**
-     * Prepares a SQL query
-     * @param connexion
-     * @param sql
-     * @param returnGeneratedKeys
-     * @param objets
-     * @return preparedStatement
-     * @throws SQLException
-     */
-    public static PreparedStatement initPreparedQuery(Connection connexion, String sql, boolean returnGeneratedKeys, Object... objets) throws SQLException {
-        PreparedStatement preparedStatement = connexion.prepareStatement(sql, returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
-
-        for (int i = 0; i < objets.length; i++) {
-            preparedStatement.setObject(i + 1, objets[i]);
-        }
 
-        return preparedStatement;
+        daoFactory.getLoginCache().clear();
+        daoFactory.getTeacherCache().remove(teacher.getId());
     }
 
     /**
@@ -1,7 +1,8 @@
 package dao;
 
-import java.util.Set;
+import java.util.List;
 
+import beans.Student;
 import beans.Test;
 
 public interface TestDao {
@@ -13,12 +14,13 @@ public interface TestDao {
     void create(Test test) throws DAOException;
 
     /**
-     * Searches one or more tests into database
+     * Searches a page of tests into database, sorted by title then id
      * @param test
-     * @return Set<Test>
+     * @param pageRequest
+     * @return Page<Test>
      * @throws DAOException
      */
-    Set<Test> search(Test test) throws DAOException;
+    Page<Test> search(Test test, PageRequest pageRequest) throws DAOException;
 
     /**
      * Edits a test into database
@@ -35,10 +37,32 @@ public interface TestDao {
      */
     Test get(Test test) throws DAOException;
 
+    /**
+     * Returns the students of the group of a teacher's test into database
+     * @param test
+     * @return List<Student>
+     * @throws DAOException
+     */
+    List<Student> getRoster(Test test) throws DAOException;
+
+    /**
+     * Inserts or updates the scores of a test into database
+     * @param test
+     * @throws DAOException
+     */
+    void importScores(Test test) throws DAOException;
+
     /**
      * Deletes a test into database
      * @param test
      * @throws DAOException
      */
     void delete(Test test) throws DAOException;
+
+    /**
+     * Recomputes the statistics of every test and the subject averages of every student from the scores
+     * @return number of tests updated
+     * @throws DAOException
+     */
+    int repairStatistics() throws DAOException;
 }
@@ -1,14 +1,23 @@
 package dao;
 
+import static dao.DAOUtility.silentClosure;
 import static dao.DAOUtility.silentClosures;
+import static dao.QueryExecutor.bind;
+import static dao.QueryExecutor.count;
+import static dao.QueryExecutor.insert;
+import static dao.QueryExecutor.prepare;
+import static dao.QueryExecutor.queryList;
+import static dao.QueryExecutor.queryOne;
+import static dao.QueryExecutor.update;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -16,22 +25,27 @@ import beans.*;
 import beans.Subject;
 
 public class TestDaoImpl implements TestDao {
-    private static final String INSERT_SCORE                  = "INSERT INTO gnw_examen_note(fk_examen, fk_etudiant, note, fk_utilisateur) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_SCORE                  = "INSERT INTO gnw_examen_note (fk_examen, fk_etudiant, note, fk_utilisateur) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE note = VALUES(note), fk_utilisateur = VALUES(fk_utilisateur)";
     private static final String INSERT_TEST                   = "INSERT INTO gnw_examen(fk_format, nom, date, coefficient, fk_professeur, fk_groupe, fk_matiere, fk_utilisateur) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String SELECT_TEST                   = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.nom as matiereNom, gnw_examen.coefficient FROM gnw_examen, gnw_matiere, gnw_groupe, gnw_formatexamen WHERE gnw_examen.date_suppr Is NULL AND gnw_examen.fk_groupe = gnw_groupe.id AND gnw_examen.fk_matiere = gnw_matiere.id AND gnw_examen.fk_format = gnw_formatexamen.id AND gnw_examen.fk_professeur = ?";
-    private static final String SELECT_TEST_BY_ID             = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.nom as matiereNom, gnw_examen.coefficient FROM gnw_examen, gnw_matiere, gnw_groupe, gnw_formatexamen WHERE gnw_examen.date_suppr IS NULL AND gnw_examen.fk_groupe = gnw_groupe.id AND gnw_examen.fk_format = gnw_formatexamen.id AND gnw_examen.fk_matiere = gnw_matiere.id AND gnw_examen.id = ?";
-    private static final String SELECT_SCORE_BY_TEST          = "SELECT id, note FROM gnw_examen_note WHERE fk_examen = ? AND fk_etudiant = ? AND date_suppr IS NULL";
-    private static final String SELECT_COUNT_SCORE_BY_TEST    = "SELECT COUNT(id) FROM gnw_examen_note WHERE fk_examen = ? AND fk_etudiant = ? AND date_suppr IS NULL";
-    private static final String SELECT_STUDENT_BY_GROUP       = "SELECT gnw_utilisateur.id, gnw_utilisateur.nom, gnw_utilisateur.prenom, gnw_utilisateur.adresse_mail FROM gnw_utilisateur, gnw_etudiant_groupe WHERE profil = 0 AND gnw_utilisateur.date_suppr IS NULL AND gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_etudiant_groupe.fk_groupe = ?";
-    private static final String SELECT_TEST_BY_SUBJECT_GROUP  = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.nom as matiereNom, AVG(gnw_examen_note.note) as average, gnw_examen.coefficient FROM gnw_examen, gnw_matiere, gnw_groupe, gnw_formatexamen, gnw_examen_note WHERE gnw_examen.date_suppr IS NULL AND gnw_examen.fk_groupe = gnw_groupe.id AND gnw_examen.fk_format = gnw_formatexamen.id AND gnw_examen.fk_matiere = gnw_matiere.id AND gnw_examen.fk_matiere = ? AND gnw_examen.fk_groupe = ? GROUP BY gnw_examen.id";
-    private static final String SELECT_SUBJECT_BY_STUDENT     = "SELECT DISTINCT gnw_examen.fk_matiere FROM gnw_examen, gnw_examen_note WHERE gnw_examen.date_suppr IS NULL AND gnw_examen_note.date_suppr IS NULL AND gnw_examen.id = gnw_examen_note.fk_examen AND gnw_examen_note.fk_etudiant = ?";
-    private static final String SELECT_TEST_AVERAGE_BY_SUBJECT = "SELECT SUM(gnw_examen_note.note * gnw_examen.coefficient) / SUM(gnw_examen.coefficient) as moyenne FROM gnw_examen, gnw_examen_note WHERE gnw_examen_note.fk_etudiant = ? AND gnw_examen.fk_matiere = ? AND gnw_examen_note.fk_examen = gnw_examen.id";
-    private static final String SELECT_TEST_AVERAGE           = "SELECT AVG(gnw_examen_note.note) as moyenne FROM gnw_examen_note WHERE fk_examen = ?";
-    private static final String UPDATE_SCORE                  = "UPDATE gnw_examen_note SET note = ?, fk_utilisateur = ? WHERE fk_examen = ? AND fk_etudiant = ?";
+    private static final String SELECT_TEST                   = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.nom as matiereNom, gnw_examen.coefficient, gnw_examen.moyenne, gnw_examen.nb_notes, gnw_examen.note_min, gnw_examen.note_max FROM gnw_examen, gnw_matiere, gnw_groupe, gnw_formatexamen WHERE gnw_examen.date_suppr Is NULL AND gnw_examen.fk_groupe = gnw_groupe.id AND gnw_examen.fk_matiere = gnw_matiere.id AND gnw_examen.fk_format = gnw_formatexamen.id AND gnw_examen.fk_professeur = ?";
+    private static final String COUNT_TEST                    = "SELECT COUNT(gnw_examen.id) FROM gnw_examen, gnw_matiere, gnw_groupe, gnw_formatexamen WHERE gnw_examen.date_suppr Is NULL AND gnw_examen.fk_groupe = gnw_groupe.id AND gnw_examen.fk_matiere = gnw_matiere.id AND gnw_examen.fk_format = gnw_formatexamen.id AND gnw_examen.fk_professeur = ?";
+    private static final String SELECT_TEST_WITH_SCORES       = "SELECT gnw_examen.id, gnw_examen.nom, gnw_examen.date, gnw_examen.fk_professeur, gnw_examen.fk_format as formatId, gnw_formatexamen.nom as formatNom, gnw_groupe.id as groupeId, gnw_groupe.nom as groupeNom, gnw_matiere.nom as matiereNom, gnw_examen.coefficient, gnw_examen.moyenne, gnw_examen.nb_notes, gnw_examen.note_min, gnw_examen.note_max, gnw_utilisateur.id as etudiantId, gnw_utilisateur.nom as etudiantNom, gnw_utilisateur.prenom as etudiantPrenom, gnw_utilisateur.adresse_mail as etudiantAdresseMail, gnw_examen_note.id as noteId, gnw_examen_note.note FROM gnw_examen INNER JOIN gnw_matiere ON gnw_examen.fk_matiere = gnw_matiere.id INNER JOIN gnw_groupe ON gnw_examen.fk_groupe = gnw_groupe.id INNER JOIN gnw_formatexamen ON gnw_examen.fk_format = gnw_formatexamen.id LEFT JOIN gnw_etudiant_groupe ON gnw_etudiant_groupe.fk_groupe = gnw_examen.fk_groupe LEFT JOIN gnw_utilisateur ON gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_utilisateur.profil = 0 AND gnw_utilisateur.date_suppr IS NULL LEFT JOIN gnw_examen_note ON gnw_examen_note.fk_examen = gnw_examen.id AND gnw_examen_note.fk_etudiant = gnw_utilisateur.id AND gnw_examen_note.date_suppr IS NULL WHERE gnw_examen.date_suppr IS NULL AND gnw_examen.id = ?";
+    private static final String UPDATE_TEST_STATISTICS        = "UPDATE gnw_examen LEFT JOIN (SELECT fk_examen, AVG(note) AS moyenne, COUNT(note) AS nb_notes, MIN(note) AS note_min, MAX(note) AS note_max FROM gnw_examen_note WHERE date_suppr IS NULL AND fk_examen = ? GROUP BY fk_examen) statistiques ON statistiques.fk_examen = gnw_examen.id SET gnw_examen.moyenne = COALESCE(statistiques.moyenne, 0), gnw_examen.nb_notes = COALESCE(statistiques.nb_notes, 0), gnw_examen.note_min = statistiques.note_min, gnw_examen.note_max = statistiques.note_max WHERE gnw_examen.id = ?";
+    private static final String REPAIR_TEST_STATISTICS        = "UPDATE gnw_examen LEFT JOIN (SELECT fk_examen, AVG(note) AS moyenne, COUNT(note) AS nb_notes, MIN(note) AS note_min, MAX(note) AS note_max FROM gnw_examen_note WHERE date_suppr IS NULL GROUP BY fk_examen) statistiques ON statistiques.fk_examen = gnw_examen.id SET gnw_examen.moyenne = COALESCE(statistiques.moyenne, 0), gnw_examen.nb_notes = COALESCE(statistiques.nb_notes, 0), gnw_examen.note_min = statistiques.note_min, gnw_examen.note_max = statistiques.note_max";
     private static final String UPDATE_TEST                   = "UPDATE gnw_examen SET fk_professeur = ?, fk_format = ?, nom = ?, date = ?, coefficient = ?, fk_matiere = ?, fk_utilisateur = ? WHERE id = ?";
     private static final String DELETE_TEST                   = "UPDATE gnw_examen SET date_suppr = now(), fk_utilisateur = ? WHERE id = ? AND fk_professeur = ?";
-    private static final String DELETE_SCORES_BY_TEST         = "UPDATE gnw_examen_note SET date_suppr = now(), fk_utilisateur = ? WHERE fk_examen = ?;";
+    private static final String DELETE_SCORES_BY_TEST         = "UPDATE gnw_examen_note SET date_suppr = now(), fk_utilisateur = ? WHERE fk_examen = ?";
+    private static final String SELECT_TEST_SUBJECT           = "SELECT fk_matiere FROM gnw_examen WHERE id = ? FOR UPDATE";
+    private static final String RESET_SUBJECT_AVERAGES        = "UPDATE gnw_moyenne_matiere SET somme_ponderee = 0, somme_coefficients = 0, nb_notes = 0 WHERE fk_matiere = ? AND fk_etudiant IN (SELECT fk_etudiant FROM gnw_examen_note WHERE fk_examen = ?)";
+    private static final String UPSERT_SUBJECT_AVERAGES       = "INSERT INTO gnw_moyenne_matiere (fk_etudiant, fk_matiere, somme_ponderee, somme_coefficients, nb_notes) SELECT gnw_examen_note.fk_etudiant, gnw_examen.fk_matiere, SUM(gnw_examen_note.note * gnw_examen.coefficient), SUM(gnw_examen.coefficient), COUNT(gnw_examen_note.note) FROM gnw_examen_note INNER JOIN gnw_examen ON gnw_examen.id = gnw_examen_note.fk_examen WHERE gnw_examen.date_suppr IS NULL AND gnw_examen_note.date_suppr IS NULL AND gnw_examen_note.note IS NOT NULL AND gnw_examen.fk_matiere = ? AND gnw_examen_note.fk_etudiant IN (SELECT fk_etudiant FROM gnw_examen_note WHERE fk_examen = ?) GROUP BY gnw_examen_note.fk_etudiant, gnw_examen.fk_matiere ON DUPLICATE KEY UPDATE somme_ponderee = VALUES(somme_ponderee), somme_coefficients = VALUES(somme_coefficients), nb_notes = VALUES(nb_notes)";
+    private static final String DELETE_ALL_SUBJECT_AVERAGES   = "DELETE FROM gnw_moyenne_matiere";
+    private static final String REPAIR_SUBJECT_AVERAGES       = "INSERT INTO gnw_moyenne_matiere (fk_etudiant, fk_matiere, somme_ponderee, somme_coefficients, nb_notes) SELECT gnw_examen_note.fk_etudiant, gnw_examen.fk_matiere, SUM(gnw_examen_note.note * gnw_examen.coefficient), SUM(gnw_examen.coefficient), COUNT(gnw_examen_note.note) FROM gnw_examen_note INNER JOIN gnw_examen ON gnw_examen.id = gnw_examen_note.fk_examen WHERE gnw_examen.date_suppr IS NULL AND gnw_examen_note.date_suppr IS NULL AND gnw_examen_note.note IS NOT NULL GROUP BY gnw_examen_note.fk_etudiant, gnw_examen.fk_matiere ON DUPLICATE KEY UPDATE somme_ponderee = VALUES(somme_ponderee), somme_coefficients = VALUES(somme_coefficients), nb_notes = VALUES(nb_notes)";
+    private static final String SELECT_TEACHER_TEST_SUBJECT   = "SELECT fk_matiere FROM gnw_examen WHERE id = ? AND fk_professeur = ? AND date_suppr IS NULL FOR UPDATE";
+    private static final String SELECT_ROSTER                 = "SELECT gnw_utilisateur.id, gnw_utilisateur.adresse_mail FROM gnw_examen INNER JOIN gnw_etudiant_groupe ON gnw_etudiant_groupe.fk_groupe = gnw_examen.fk_groupe INNER JOIN gnw_utilisateur ON gnw_utilisateur.id = gnw_etudiant_groupe.fk_etudiant AND gnw_utilisateur.profil = 0 AND gnw_utilisateur.date_suppr IS NULL WHERE gnw_examen.date_suppr IS NULL AND gnw_examen.id = ? AND gnw_examen.fk_professeur = ?";
+    private static final String SELECT_TEST_GROUP             = "SELECT fk_groupe FROM gnw_examen WHERE id = ?";
+    private static final String SELECT_STUDENTS_BY_TEST       = "SELECT gnw_etudiant_groupe.fk_etudiant FROM gnw_examen INNER JOIN gnw_etudiant_groupe ON gnw_etudiant_groupe.fk_groupe = gnw_examen.fk_groupe WHERE gnw_examen.id = ?";
     private DAOFactory daoFactory;
+    private UnitOfWork unitOfWork;
 
     /**
      * Returns daoFactory
@@ -39,65 +53,31 @@ public class TestDaoImpl implements TestDao {
      */
     TestDaoImpl(DAOFactory daoFactory) {
         this.daoFactory = daoFactory;
+        this.unitOfWork = new UnitOfWork(daoFactory);
     }
 
     /**
-     * Creates a test into database
+     * Creates a test and its scores in one transaction
      * @param test
      * @throws DAOException
      */
-    public void create(Test test) {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Group             group             = new Group(test.getGroup());
-        Subject           subject           = new Subject(test.getSubject());
-        Teacher           teacher           = new Teacher(test.getTeacher());
-        TestFormat        format            = new TestFormat(test.getFormat());
-        ResultSet         resultSet         = null;
-
-        try {
-            connexion = daoFactory.getConnection();
-
-            preparedStatement = initPreparedQuery(connexion, INSERT_TEST, true, format.getId(), test.getTitle(), test.getDate(), test.getCoefficient(), teacher.getId(), group.getId(), subject.getId(), teacher.getId());
-            preparedStatement.executeUpdate();
-            resultSet = preparedStatement.getGeneratedKeys();
-
-            if (resultSet.next()) {
-                test.setId(resultSet.getLong(1));
-            }
-
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
-    }
-
-    /**
-     * Add a score to a student into database
-     * @param test
-     * @param score
-     * @throws DAOException
-     */
-    private void addScore(Test test, Score score) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Student           student           = new Student(score.getStudent());
-        Teacher           teacher           = new Teacher(test.getTeacher());
-
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, INSERT_SCORE, true, test.getId(), student.getId(), score.getScore(), teacher.getId());
-            preparedStatement.executeUpdate();
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
+    public void create(Test test) throws DAOException {
+        Group      group   = new Group(test.getGroup());
+        Subject    subject = new Subject(test.getSubject());
+        Teacher    teacher = new Teacher(test.getTeacher());
+        TestFormat format  = new TestFormat(test.getFormat());
+        List<Long> studentIds;
+
+        studentIds = unitOfWork.execute(connexion -> {
+            test.setId(insert(connexion, INSERT_TEST, format.getId(), test.getTitle(), test.getDate(), test.getCoefficient(), teacher.getId(), group.getId(), subject.getId(), teacher.getId()));
+            saveScores(connexion, test);
+            update(connexion, UPDATE_TEST_STATISTICS, test.getId(), test.getId());
+            refreshSubjectAverages(connexion, subject.getId(), test.getId());
+
+            return queryList(connexion, SELECT_STUDENTS_BY_TEST, TestDaoImpl::mapId, test.getId());
+        });
+
+        evictGradebooks(studentIds);
     }
 
     /**
@@ -105,584 +85,328 @@ public class TestDaoImpl implements TestDao {
      * @param test
      * @throws DAOException
      */
-    public Test get(Test test) {
-        test = getTest(test);
-        getStudents(test);
-        checkScores(test);
-        getScores(test);
-        getAverage(test);
-
-        return test;
-    }
-
-    /**
-     * Returns test student into database
-     * @param test
-     * @throws DAOException
-     */
-    private void getStudents(Test test) throws DAOException {
+    public Test get(Test test) throws DAOException {
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
-        Student           student           = new Student();
-        Group             group             = new Group(test.getGroup());
         Set<Score>        scores            = new TreeSet<Score>();
+        boolean           found             = false;
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_STUDENT_BY_GROUP, true, group.getId());
+            preparedStatement = prepare(connexion, SELECT_TEST_WITH_SCORES, test.getId());
             resultSet = preparedStatement.executeQuery();
 
+            // One row per student of the test group, the test columns are repeated on each row
             while (resultSet.next()) {
-                Score score = new Score();
-                student = mapEtudiant(resultSet);
-                score.setStudent(student);
-                scores.add(score);
+                if (!found) {
+                    test = mapExamen(resultSet);
+                    found = true;
+                }
+
+                resultSet.getLong("etudiantId");
+
+                if (resultSet.wasNull()) {
+                    continue;
+                }
+
+                scores.add(mapScore(resultSet));
             }
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosures(resultSet, preparedStatement, connexion);
         }
 
         test.setScores(scores);
+
+        return test;
     }
 
     /**
-     * Returns test scores into database
-     * @param test
-     * @throws DAOException
+     * Returns student gradebook into database
+     * @param student
+     * @return gradebook
      */
-    private void getScores(Test test) throws DAOException {
-        Set<Score> scores = new TreeSet<Score>(test.getScores());
-        Object[]   ss     = scores.toArray();
-
-        for (Object s : ss) {
-            Score score = (Score) s;
-            getScore(test, score);
-            scores.add(score);
-        }
-
-        test.setScores(scores);
+    public Gradebook getGradebook(Student student) throws DAOException {
+        return new GradebookBuilder(daoFactory).build(student);
     }
 
     /**
-     * Returns a test average into database
+     * Searchs one or more tests into database
      * @param test
      * @throws DAOException
      */
-    private void getAverage(Test test) throws DAOException {
+    public Page<Test> search(Test test, PageRequest pageRequest) throws DAOException {
+        List<Test>        tests             = new ArrayList<Test>();
+        Group             group             = new Group(test.getGroup());
+        Subject           subject           = new Subject(test.getSubject());
+        Teacher           teacher           = new Teacher(test.getTeacher());
+        TestFormat        format            = new TestFormat(test.getFormat());
+        SearchQuery       query             = new SearchQuery(teacher.getId());
         Connection        connexion         = null;
         PreparedStatement preparedStatement = null;
         ResultSet         resultSet         = null;
+        Integer           total             = null;
+        Page<Test>        page;
+
+        query.equal("gnw_examen.id", test.getId())
+             .like("gnw_examen.nom", test.getTitle())
+             .equal("gnw_examen.date", test.getDate())
+             .equal("gnw_examen.fk_format", format.getId())
+             .equal("gnw_examen.fk_groupe", group.getId())
+             .equal("gnw_examen.fk_matiere", subject.getId());
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_TEST_AVERAGE, true, test.getId());
-            resultSet = preparedStatement.executeQuery();
 
-            if (resultSet.next()) {
-                test.setAverage(resultSet.getFloat("moyenne"));
+            if (pageRequest.isCountTotal()) {
+                total = count(connexion, query.toSql(COUNT_TEST), query.getParameters());
             }
 
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
-    }
-
-    /**
-     * Returns a test student score into database
-     * @param test
-     * @param score
-     * @throws DAOException
-     */
-    private void getScore(Test test, Score score) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-        Student           student           = new Student(score.getStudent());
-
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_SCORE_BY_TEST, true, test.getId(), student.getId());
+            query.after("gnw_examen.nom", "gnw_examen.id", pageRequest);
+            preparedStatement = prepare(connexion, query.toSql(SELECT_TEST, " ORDER BY gnw_examen.nom, gnw_examen.id LIMIT ?"), query.getParameters(pageRequest.getSize() + 1));
             resultSet = preparedStatement.executeQuery();
 
-            if (resultSet.next()) {
-                score.setId(resultSet.getLong("id"));
-                score.setScore(resultSet.getFloat("note"));
+            while (resultSet.next()) {
+                tests.add(mapExamen(resultSet));
             }
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosures(resultSet, preparedStatement, connexion);
         }
-    }
 
-    /**
-     * Returns a test student score into database
-     * @param test
-     * @param student
-     * @throws DAOException
-     */
-    private Test getScore(Test test, Student student) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-        Set<Score>        scores            = new TreeSet<Score>();
-        Score             score             = new Score(student);
+        page = new Page<Test>(tests, pageRequest.getSize(), total);
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_SCORE_BY_TEST, true, test.getId(), student.getId());
-            resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                score.setId(resultSet.getLong("id"));
-                score.setScore(resultSet.getFloat("note"));
-                scores.add(score);
-                test.setScores(scores);
-            }
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
+        if (page.isHasNext()) {
+            page.setNextCursor(PageRequest.cursor(page.getLast().getTitle(), page.getLast().getId()));
         }
 
-        return test;
+        return page;
     }
 
     /**
-     * Returns a test into database
+     * Edits a test and its scores in one transaction
      * @param test
-     * @return test
      * @throws DAOException
      */
-    private Test getTest(Test test) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_TEST_BY_ID, true, test.getId());
-            resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                test = mapExamen(resultSet);
-            }
-
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
+    public void edit(Test test) throws DAOException {
+        Subject    subject = new Subject(test.getSubject());
+        List<Long> studentIds;
 
-        return test;
-    }
+        studentIds = unitOfWork.execute(connexion -> {
+            Long oldSubjectId = queryOne(connexion, SELECT_TEST_SUBJECT, TestDaoImpl::mapId, test.getId());
 
-    /**
-     * Returns student scores in a subject into database
-     * @param subjectScore
-     * @param student
-     * @return subjectScore
-     * @throws DAOException
-     */
-    private void getTests(SubjectScore subjectScore, Student student) {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-        Subject           subject           = new Subject(subjectScore.getSubject());
-        Group             group             = new Group(student.getGroup());
-        Set<Test>         tests             = new TreeSet<Test>();
-
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_TEST_BY_SUBJECT_GROUP, true, subject.getId(), group.getId());
-            resultSet = preparedStatement.executeQuery();
+            editTest(connexion, test);
+            saveScores(connexion, test);
+            update(connexion, UPDATE_TEST_STATISTICS, test.getId(), test.getId());
+            refreshSubjectAverages(connexion, subject.getId(), test.getId());
 
-            while (resultSet.next()) {
-                Test test = new Test();
-                test = mapExamen(resultSet);
-                test = getScore(test, student);
-                tests.add(test);
+            // The scores of the test leave the averages of its former subject
+            if ((oldSubjectId != null) && !oldSubjectId.equals(subject.getId())) {
+                refreshSubjectAverages(connexion, oldSubjectId, test.getId());
             }
 
-            subjectScore.setTests(tests);
+            return queryList(connexion, SELECT_STUDENTS_BY_TEST, TestDaoImpl::mapId, test.getId());
+        });
 
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
+        evictGradebooks(studentIds);
     }
 
     /**
-     * Returns student subject informations into database
-     * @param student
-     * @return subjectScores
-     * @throws DAOException
+     * Edits test informations
+     * @param connexion
+     * @param test
+     * @throws SQLException
      */
-    public Set<SubjectScore> getSubjectScores(Student student) throws DAOException {
-        Connection        connexion         = null;
+    private void editTest(Connection connexion, Test test) throws SQLException {
         PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-        Set<SubjectScore> subjectScores     = new TreeSet<SubjectScore>();
-        SubjectDaoImpl    subjectDao        = new SubjectDaoImpl(daoFactory);
+        Teacher           teacher           = new Teacher(test.getTeacher());
+        TestFormat        format            = new TestFormat(test.getFormat());
+        Subject           subject           = new Subject(test.getSubject());
 
         try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_SUBJECT_BY_STUDENT, true, student.getId());
-            resultSet = preparedStatement.executeQuery();
-
-            while (resultSet.next()) {
-                SubjectScore subjectScore = new SubjectScore();
-                subjectScore.setId(resultSet.getLong("fk_matiere"));
-                Subject subject = new Subject(subjectScore.getId());
-                subject = subjectDao.get(subject);
-                subjectScore.setSubject(subject);
-                getSubjectAverage(subjectScore, student);
-                getTests(subjectScore, student);
-                subjectScores.add(subjectScore);
-            }
-
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
+            preparedStatement = prepare(connexion, UPDATE_TEST, teacher.getId(), format.getId(), test.getTitle(), test.getDate(), test.getCoefficient(), subject.getId(), teacher.getId(), test.getId());
+            preparedStatement.executeUpdate();
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(preparedStatement);
         }
-
-        return subjectScores;
     }
 
     /**
-     * Returns a student subject average into database
-     * @param subjectScore
-     * @param student
-     * @return subjectScore
+     * Returns the students of the group of a test, with their id and email address only
+     * @param test
+     * @return students, empty when the test does not belong to its teacher
      * @throws DAOException
      */
-    public void getSubjectAverage(SubjectScore subjectScore, Student student) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
+    public List<Student> getRoster(Test test) throws DAOException {
+        Teacher    teacher   = new Teacher(test.getTeacher());
+        Connection connexion = null;
 
         try {
             connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_TEST_AVERAGE_BY_SUBJECT, true, student.getId(), subjectScore.getId());
-            resultSet = preparedStatement.executeQuery();
 
-            resultSet.next();
-            subjectScore.setAverage(resultSet.getFloat("moyenne"));
+            return queryList(connexion, SELECT_ROSTER, resultSet -> {
+                Student student = new Student();
+
+                student.setId(resultSet.getLong("id"));
+                student.setEmailAddress(resultSet.getString("adresse_mail"));
 
+                return student;
+            }, test.getId(), teacher.getId());
         }
         catch (SQLException e) {
             throw new DAOException(e);
         }
         finally {
-            silentClosures(preparedStatement, connexion);
-        }
-
-    }
-
-    /**
-     * Calculates gradebook average
-     * @param subjectScores
-     * @return average
-     */
-    public float calcGradebookAverage(Set<SubjectScore> subjectScores) {
-        float    average = 0;
-        Object[] mss     = subjectScores.toArray();
-        int      i       = 0;
-
-        for (Object ms : mss) {
-            SubjectScore subjectScore = (SubjectScore) ms;
-            average += subjectScore.getAverage();
-            i++;
+            silentClosure(connexion);
         }
-
-        return (average / i);
     }
 
     /**
-     * Returns student gradebook into database
-     * @param student
-     * @return gradebook
-     */
-    public Gradebook getGradebook(Student student) {
-        Gradebook gradebook = new Gradebook();
-
-        gradebook.setSubjectScores(getSubjectScores(student));
-        gradebook.setAverage(calcGradebookAverage(gradebook.getSubjectScores()));
-
-        return gradebook;
-    }
-
-    /**
-     * Searchs one or more tests into database
+     * Inserts or updates the scores of a test in one batch and transaction, the other scores are kept,
+     * the gradebooks of the group are rebuilt in the background once committed
      * @param test
      * @throws DAOException
      */
-    public Set<Test> search(Test test) throws DAOException {
-        Set<Test>         tests             = new TreeSet<Test>();
-        Group             group             = new Group(test.getGroup());
-        Subject           subject           = new Subject(test.getSubject());
-        Teacher           teacher           = new Teacher(test.getTeacher());
-        TestFormat        format            = new TestFormat(test.getFormat());
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-        String            SQLQuery          = SELECT_TEST;
-
-        try {
-            connexion = daoFactory.getConnection();
+    public void importScores(Test test) throws DAOException {
+        Teacher    teacher = new Teacher(test.getTeacher());
+        Group      group   = new Group();
+        List<Long> studentIds;
 
-            if (test.getId() != null) {
-                SQLQuery += " AND gnw_examen.id = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_examen.id IS NOT ?";
-            }
+        studentIds = unitOfWork.execute(connexion -> {
+            Long subjectId = queryOne(connexion, SELECT_TEACHER_TEST_SUBJECT, TestDaoImpl::mapId, test.getId(), teacher.getId());
 
-            if (test.getTitle() != null) {
-                SQLQuery += " AND gnw_examen.nom LIKE ?";
-                test.setTitle("%" + test.getTitle() + "%");
-            }
-            else {
-                SQLQuery += " AND gnw_examen.nom IS NOT ?";
+            if (subjectId == null) {
+                throw new DAOException("Examen introuvable pour ce professeur.");
             }
 
-            if (test.getDate() != null) {
-                SQLQuery += " AND gnw_examen.date = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_examen.date IS NOT ?";
-            }
+            saveScores(connexion, test);
+            update(connexion, UPDATE_TEST_STATISTICS, test.getId(), test.getId());
+            refreshSubjectAverages(connexion, subjectId, test.getId());
+            group.setId(queryOne(connexion, SELECT_TEST_GROUP, TestDaoImpl::mapId, test.getId()));
 
-            if (format.getId() != null) {
-                SQLQuery += " AND gnw_examen.fk_format = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_examen.fk_format IS NOT ?";
-            }
+            return queryList(connexion, SELECT_STUDENTS_BY_TEST, TestDaoImpl::mapId, test.getId());
+        });
 
-            if (group.getId() != null) {
-                SQLQuery += " AND gnw_examen.fk_groupe = ?";
-            }
-            else {
-                SQLQuery += " AND gnw_examen.fk_groupe IS NOT ?";
-            }
+        evictGradebooks(studentIds);
 
-            if (subject.getId() != null) {
-                SQLQuery += " AND gnw_examen.fk_matiere = ?";
+        // Rebuilt in the background, the teacher does not wait for the gradebooks of the whole group
+        daoFactory.getMaintenanceExecutor().execute(() -> {
+            try {
+                daoFactory.getStudentDao().warmGradebooks(group);
             }
-            else {
-                SQLQuery += " AND gnw_examen.fk_matiere IS NOT ?";
+            catch (DAOException e) {
+                System.out.println("Préchargement des bulletins impossible : " + e.getMessage());
             }
-
-            preparedStatement = initPreparedQuery(connexion, SQLQuery, true, teacher.getId(), test.getId(), test.getTitle(), test.getDate(), format.getId(), group.getId(), subject.getId());
-            resultSet = preparedStatement.executeQuery();
-
-            while (resultSet.next()) {
-                test = mapExamen(resultSet);
-                getAverage(test);
-                tests.add(test);
-            }
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(resultSet, preparedStatement, connexion);
-        }
-
-        return tests;
-    }
-
-    /**
-     * Edits a test
-     * @param test
-     */
-    public void edit(Test test) {
-        editTest(test);
-        editScores(test);
+        });
     }
 
     /**
-     * Edits test informations
+     * Inserts or updates test scores in one batch
+     * @param connexion
      * @param test
-     * @throws DAOException
+     * @throws SQLException
      */
-    private void editTest(Test test) throws DAOException {
-        Connection        connexion         = null;
+    private void saveScores(Connection connexion, Test test) throws SQLException {
         PreparedStatement preparedStatement = null;
         Teacher           teacher           = new Teacher(test.getTeacher());
-        TestFormat        format            = new TestFormat(test.getFormat());
-        Subject           subject           = new Subject(test.getSubject());
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_TEST, true, teacher.getId(), format.getId(), test.getTitle(), test.getDate(), test.getCoefficient(), subject.getId(), teacher.getId(), test.getId());
-            preparedStatement.executeUpdate();
+        if ((test.getScores() == null) || test.getScores().isEmpty()) {
+            return;
         }
-        catch (SQLException e) {
-            throw new DAOException(e);
+
+        try {
+            preparedStatement = connexion.prepareStatement(UPSERT_SCORE);
+
+            for (Score score : test.getScores()) {
+                Student student = new Student(score.getStudent());
+                bind(preparedStatement, test.getId(), student.getId(), score.getScore(), teacher.getId());
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
         }
         finally {
-            silentClosures(preparedStatement, connexion);
+            silentClosure(preparedStatement);
         }
     }
 
     /**
-     * Edits test scores
+     * Deletes a test and its scores in one transaction
      * @param test
      * @throws DAOException
      */
-    private void editScores(Test test) throws DAOException {
-        Object[] scores = test.getScores().toArray();
-
-        for (Object s : scores) {
-            Score score = (Score) s;
-            editScore(test, score);
-        }
-    }
+    public void delete(Test test) throws DAOException {
+        Teacher    teacher = new Teacher(test.getTeacher());
+        List<Long> studentIds;
 
-    /**
-     * Updates test scores
-     * @param test
-     */
-    private void checkScores(Test test) {
-        Object[] scores = test.getScores().toArray();
+        studentIds = unitOfWork.execute(connexion -> {
+            Long subjectId = queryOne(connexion, SELECT_TEST_SUBJECT, TestDaoImpl::mapId, test.getId());
 
-        for (Object s : scores) {
-            Score score = (Score) s;
+            update(connexion, DELETE_TEST, teacher.getId(), test.getId(), teacher.getId());
+            update(connexion, DELETE_SCORES_BY_TEST, teacher.getId(), test.getId());
+            update(connexion, UPDATE_TEST_STATISTICS, test.getId(), test.getId());
 
-            if (checkScore(test, score)) {
-                addScore(test, score);
+            if (subjectId != null) {
+                refreshSubjectAverages(connexion, subjectId, test.getId());
             }
-        }
+
+            return queryList(connexion, SELECT_STUDENTS_BY_TEST, TestDaoImpl::mapId, test.getId());
+        });
+
+        evictGradebooks(studentIds);
     }
 
     /**
-     * Check the existence of a score into database
-     * @param test
-     * @param score
-     * @return boolean
+     * Recomputes the average, number, lowest and highest scores of every test, and the subject averages of every student
+     * @return number of tests updated
      * @throws DAOException
      */
-    private boolean checkScore(Test test, Score score) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        ResultSet         resultSet         = null;
-        Student           student           = new Student(score.getStudent());
+    public int repairStatistics() throws DAOException {
+        int updated = unitOfWork.execute(connexion -> {
+            int tests = update(connexion, REPAIR_TEST_STATISTICS);
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, SELECT_COUNT_SCORE_BY_TEST, true, test.getId(), student.getId());
-            resultSet = preparedStatement.executeQuery();
-            resultSet.next();
+            update(connexion, DELETE_ALL_SUBJECT_AVERAGES);
+            update(connexion, REPAIR_SUBJECT_AVERAGES);
 
-            if (resultSet.getInt(1) == 1) {
-                return false;
-            }
+            return tests;
+        });
 
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
+        daoFactory.getGradebookCache().clear();
 
-        return true;
+        return updated;
     }
 
     /**
-     * Edit a student score into database
-     * @param test
-     * @param score
-     * @throws DAOException
+     * Removes the cached gradebooks of the students of a test group once its changes are committed
+     * @param studentIds
      */
-    private void editScore(Test test, Score score) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Student           student           = new Student(score.getStudent());
-        Teacher           teacher           = new Teacher(test.getTeacher());
+    private void evictGradebooks(List<Long> studentIds) {
+        LRUCache<Long, Gradebook> gradebookCache = daoFactory.getGradebookCache();
 
-        try {
-            connexion = daoFactory.getConnection();
-            preparedStatement = initPreparedQuery(connexion, UPDATE_SCORE, true, score.getScore(), teacher.getId(), test.getId(), student.getId());
-            preparedStatement.executeUpdate();
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
+        for (Long studentId : studentIds) {
+            gradebookCache.remove(studentId);
         }
     }
 
     /**
-     * Deletes a test into database
-     * @param test
-     * @throws DAOException
-     */
-    public void delete(Test test) throws DAOException {
-        Connection        connexion         = null;
-        PreparedStatement preparedStatement = null;
-        Teacher           teacher           = new Teacher(test.getTeacher());
-
-        try {
-            connexion = daoFactory.getConnection();
-
-            // Deletes the test
-            preparedStatement = initPreparedQuery(connexion, DELETE_TEST, true, teacher.getId(), test.getId(), teacher.getId());
-            preparedStatement.executeUpdate();
-
-            // Deletes test scores
-            preparedStatement = initPreparedQuery(connexion, DELETE_SCORES_BY_TEST, true, teacher.getId(), test.getId());
-            preparedStatement.executeUpdate();
-        }
-        catch (SQLException e) {
-            throw new DAOException(e);
-        }
-        finally {
-            silentClosures(preparedStatement, connexion);
-        }
-    }
-
-    /**
-     * Prepares a SQL query
+     * Recomputes the averages in a subject of the students scored in a test
      * @param connexion
-     * @param sql
-     * @param returnGeneratedKeys
-     * @param objets
-     * @return preparedStatement
+     * @param subjectId
+     * @param testId
      * @throws SQLException
      */
-    public static PreparedStatement initPreparedQuery(Connection connexion, String sql, boolean returnGeneratedKeys, Object... objets) throws SQLException {
-        PreparedStatement preparedStatement = connexion.prepareStatement(sql, returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
-
-        for (int i = 0; i < objets.length; i++) {
-            preparedStatement.setObject(i + 1, objets[i]);
-        }
-
-        return preparedStatement;
+    private void refreshSubjectAverages(Connection connexion, Long subjectId, Long testId) throws SQLException {
+        // Students left without any score in the subject keep an empty row
+        update(connexion, RESET_SUBJECT_AVERAGES, subjectId, testId);
+        update(connexion, UPSERT_SUBJECT_AVERAGES, subjectId, testId);
     }
 
     /**
@@ -691,7 +415,7 @@ public class TestDaoImpl implements TestDao {
      * @return test
      * @throws SQLException
      */
-    private static Test mapExamen(ResultSet resultSet) throws SQLException {
+    static Test mapExamen(ResultSet resultSet) throws SQLException {
         Test       test    = new Test();
         Subject    subject = new Subject();
         Group      group   = new Group();
@@ -701,6 +425,10 @@ public class TestDaoImpl implements TestDao {
         test.setId(resultSet.getLong("id"));
         test.setTitle(resultSet.getString("nom"));
         test.setCoefficient(resultSet.getFloat("coefficient"));
+        test.setAverage(resultSet.getFloat("moyenne"));
+        test.setScoreCount(resultSet.getInt("nb_notes"));
+        test.setMinScore(getNullableFloat(resultSet, "note_min"));
+        test.setMaxScore(getNullableFloat(resultSet, "note_max"));
         test.setDate(convertDateToString(resultSet.getDate("date")));
         teacher.setId(resultSet.getLong("fk_professeur"));
         test.setTeacher(teacher);
@@ -717,20 +445,50 @@ public class TestDaoImpl implements TestDao {
     }
 
     /**
-     * Maps a student
+     * Maps a student score of a test
      * @param resultSet
-     * @return student
+     * @return score
      * @throws SQLException
      */
-    private static Student mapEtudiant(ResultSet resultSet) throws SQLException {
+    private static Score mapScore(ResultSet resultSet) throws SQLException {
         Student student = new Student();
+        Score   score   = new Score(student);
+        long    id      = resultSet.getLong("noteId");
+
+        student.setId(resultSet.getLong("etudiantId"));
+        student.setLastName(resultSet.getString("etudiantNom"));
+        student.setFirstName(resultSet.getString("etudiantPrenom"));
+        student.setEmailAddress(resultSet.getString("etudiantAdresseMail"));
+
+        if (id != 0) {
+            score.setId(id);
+            score.setScore(getNullableFloat(resultSet, "note"));
+        }
+
+        return score;
+    }
 
-        student.setId(resultSet.getLong("id"));
-        student.setLastName(resultSet.getString("nom"));
-        student.setFirstName(resultSet.getString("prenom"));
-        student.setEmailAddress(resultSet.getString("adresse_mail"));
+    /**
+     * Maps the id of the first column
+     * @param resultSet
+     * @return id
+     * @throws SQLException
+     */
+    private static Long mapId(ResultSet resultSet) throws SQLException {
+        return resultSet.getLong(1);
+    }
+
+    /**
+     * Returns a float column, null when the column is null
+     * @param resultSet
+     * @param column
+     * @return value
+     * @throws SQLException
+     */
+    private static Float getNullableFloat(ResultSet resultSet, String column) throws SQLException {
+        float value = resultSet.getFloat(column);
 
-        return student;
+        return resultSet.wasNull() ? null : value;
     }
 
     /**
@@ -0,0 +1,22 @@
+package dao;
+
+import java.util.List;
+
+import beans.TestFormat;
+
+public interface TestFormatDao {
+    /**
+     * Returns every test format into database
+     * @return List<TestFormat>
+     * @throws DAOException
+     */
+    List<TestFormat> search() throws DAOException;
+
+    /**
+     * Returns a test format into database
+     * @param format
+     * @return TestFormat
+     * @throws DAOException
+     */
+    TestFormat get(TestFormat format) throws DAOException;
+}
@@ -0,0 +1,102 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static dao.DAOUtility.*;
+import static dao.QueryExecutor.*;
+
+import java.util.List;
+
+import beans.TestFormat;
+
+public class TestFormatDaoImpl implements TestFormatDao {
+    private DAOFactory daoFactory;
+    private static final String SELECT_ALL   = "SELECT id, nom FROM gnw_formatexamen ORDER BY id ASC";
+    private static final String SELECT_BY_ID = "SELECT id, nom FROM gnw_formatexamen WHERE id = ?";
+
+    /**
+     * Returns daoFactory
+     * @param daoFactory
+     */
+    TestFormatDaoImpl(DAOFactory daoFactory) {
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Returns every test format into database
+     * @return formats
+     * @throws DAOException
+     */
+    public List<TestFormat> search() throws DAOException {
+        Connection       connexion = null;
+        List<TestFormat> formats   = null;
+
+        try {
+            connexion = daoFactory.getConnection();
+            formats = queryList(connexion, SELECT_ALL, TestFormatDaoImpl::map);
+
+            for (TestFormat format : formats) {
+                daoFactory.getTestFormatCache().put(format.getId(), new TestFormat(format));
+            }
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+
+        return formats;
+    }
+
+    /**
+     * Returns a test format, from the cache when it has already been read
+     * @param format
+     * @return format
+     * @throws DAOException
+     */
+    public TestFormat get(TestFormat format) throws DAOException {
+        Connection connexion = null;
+        TestFormat found     = null;
+        TestFormat cached    = daoFactory.getTestFormatCache().get(format.getId());
+
+        if (cached != null) {
+            return new TestFormat(cached);
+        }
+
+        try {
+            connexion = daoFactory.getConnection();
+            found = queryOne(connexion, SELECT_BY_ID, TestFormatDaoImpl::map, format.getId());
+
+            if (found != null) {
+                format = found;
+                daoFactory.getTestFormatCache().put(format.getId(), new TestFormat(format));
+            }
+        }
+        catch (SQLException e) {
+            throw new DAOException(e);
+        }
+        finally {
+            silentClosure(connexion);
+        }
+
+        return format;
+    }
+
+    /**
+     * Maps a TestFormat
+     * @param resultSet
+     * @return format
+     * @throws SQLException
+     */
+    private static TestFormat map(ResultSet resultSet) throws SQLException {
+        TestFormat format = new TestFormat();
+
+        format.setId(resultSet.getLong("id"));
+        format.setName(resultSet.getString("nom"));
+
+        return format;
+    }
+}
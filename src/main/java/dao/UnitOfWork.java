@@ -0,0 +1,130 @@
+package dao;
+
+import static dao.DAOUtility.silentClosure;
+import static dao.DAOUtility.silentRollback;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+class UnitOfWork {
+    private static final ThreadLocal<Connection> CURRENT = new ThreadLocal<Connection>();
+    private DAOFactory daoFactory;
+
+    /**
+     * Constructor
+     * @param daoFactory
+     */
+    UnitOfWork(DAOFactory daoFactory) {
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Runs a work in one transaction on one connection, the DAO methods it calls share that connection,
+     * a work started inside another one joins it
+     * @param work
+     * @return result of the work
+     * @throws DAOException
+     */
+    <T> T execute(Work<T> work) throws DAOException {
+        Connection current   = CURRENT.get();
+        Connection connexion = null;
+        T          result;
+
+        if (current != null) {
+            try {
+                return work.execute(current);
+            }
+            catch (SQLException e) {
+                throw new DAOException(e);
+            }
+        }
+
+        try {
+            connexion = daoFactory.getConnection();
+            connexion.setAutoCommit(false);
+            CURRENT.set(participant(connexion));
+            result = work.execute(CURRENT.get());
+            connexion.commit();
+        }
+        catch (SQLException e) {
+            silentRollback(connexion);
+            throw new DAOException(e);
+        }
+        catch (RuntimeException e) {
+            silentRollback(connexion);
+            throw e;
+        }
+        finally {
+            CURRENT.remove();
+            silentClosure(connexion);
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs a work without result in one transaction
+     * @param action
+     * @throws DAOException
+     */
+    void run(Action action) throws DAOException {
+        execute(connexion -> {
+            action.run(connexion);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the connection of the unit of work running in the current thread, null when there is none
+     * @return connexion
+     */
+    static Connection current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns a handle on the connection of a unit of work, close(), commit(), rollback() and setAutoCommit() are left to the unit of work
+     * @param connexion
+     * @return participant
+     */
+    private static Connection participant(Connection connexion) {
+        return (Connection) Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            String name = method.getName();
+
+            if ("close".equals(name) || "commit".equals(name) || "rollback".equals(name) || "setAutoCommit".equals(name)) {
+                return null;
+            }
+
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+
+            try {
+                return method.invoke(connexion, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Work done in a unit of work
+     */
+    interface Work<T> {
+        T execute(Connection connexion) throws SQLException;
+    }
+
+    /**
+     * Work without result done in a unit of work
+     */
+    interface Action {
+        void run(Connection connexion) throws SQLException;
+    }
+}
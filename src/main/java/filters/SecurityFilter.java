@@ -0,0 +1,100 @@
+package filters;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import beans.Principal;
+
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class SecurityFilter implements Filter {
+    private static final String              LOGIN_URL    = "/login";
+    private static final String              USER_SESSION = "userSession";
+    private static final Map<String, Access> ACCESSES     = new HashMap<String, Access>();
+
+    static {
+        ACCESSES.put("/resources", Access.STATIC);
+        ACCESSES.put("/javax.faces.resource", Access.STATIC);
+        ACCESSES.put(LOGIN_URL, Access.PUBLIC);
+        ACCESSES.put("/ai", Access.ADMINISTRATOR);
+        ACCESSES.put("/ti", Access.TEACHER);
+        ACCESSES.put("/si", Access.STUDENT);
+    }
+
+    public void init(FilterConfig config) throws ServletException {
+    }
+
+    public void doFilter(ServletRequest req, ServletResponse rep, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest  request  = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) rep;
+        Access              access   = classify(request.getServletPath(), request.getPathInfo());
+        HttpSession         session;
+        Object              principal;
+
+        // Static content and the login page are served without looking at the session
+        if ((access == Access.STATIC) || (access == Access.PUBLIC)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        session = request.getSession(false);
+        principal = (session == null) ? null : session.getAttribute(USER_SESSION);
+
+        if ((principal instanceof Principal) && access.allows((Principal) principal)) {
+            chain.doFilter(request, response);
+        }
+        else {
+            request.getRequestDispatcher(LOGIN_URL).forward(request, response);
+        }
+    }
+
+    /**
+     * Returns the access of a path according to its first segment, any other path needs a logged in user,
+     * the servlet path and path info are decoded and normalized by the container, the request URI is not
+     * @param servletPath
+     * @param pathInfo
+     * @return access
+     */
+    private static Access classify(String servletPath, String pathInfo) {
+        String path   = (pathInfo == null) ? servletPath : servletPath + pathInfo;
+        int    end    = path.indexOf('/', 1);
+        Access access = ACCESSES.get((end == -1) ? path : path.substring(0, end));
+
+        return (access == null) ? Access.AUTHENTICATED : access;
+    }
+
+    public void destroy() {
+    }
+
+    /**
+     * Access to a part of the application, the profile a user must have, -1 for any profile
+     */
+    private enum Access {
+        STATIC(-1),
+        PUBLIC(-1),
+        AUTHENTICATED(-1),
+        ADMINISTRATOR(Principal.ADMINISTRATOR),
+        TEACHER(Principal.TEACHER),
+        STUDENT(Principal.STUDENT);
+
+        private final int profile;
+
+        Access(int profile) {
+            this.profile = profile;
+        }
+
+        boolean allows(Principal principal) {
+            return (profile == -1) || (principal.getProfile() == profile);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package forms;
 
-import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,10 +9,13 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
 import beans.Administrator;
+import beans.Principal;
 import dao.AdministratorDao;
+import utilities.PasswordHasher;
+import utilities.PasswordHashingException;
 
 public class AdministratorForm {
-    private static final String              ADMINISTRATOR_SESSION = "administratorSession";
+    private static final String              USER_SESSION          = "userSession";
     private static final String              ID_FIELD              = "id";
     private static final String              LAST_NAME_FIELD       = "lastName";
     private static final String              FIRST_NAME_FIELD      = "firstName";
@@ -42,7 +44,7 @@ public class AdministratorForm {
         String        emailAddress  = getFieldVar(request, EMAIL_ADDRESS_FIELD);
         String        password      = getFieldVar(request, PASSWORD_FIELD);
         String        confirmation  = getFieldVar(request, CONFIRMATION_FIELD);
-        Administrator creator       = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator creator       = getAdministrator(request);
         Administrator administrator = new Administrator();
 
         treatLastName(lastName, administrator);
@@ -111,7 +113,7 @@ public class AdministratorForm {
         String        emailAddress  = getFieldVar(request, EMAIL_ADDRESS_FIELD);
         String        password      = getFieldVar(request, PASSWORD_FIELD);
         String        confirmation  = getFieldVar(request, CONFIRMATION_FIELD);
-        Administrator editor        = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor        = getAdministrator(request);
         Administrator administrator = new Administrator();
 
         treatId(id, administrator);
@@ -138,7 +140,7 @@ public class AdministratorForm {
      */
     public void delete(HttpServletRequest request) {
         String        id            = getFieldVar(request, ID_FIELD);
-        Administrator editor        = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor        = getAdministrator(request);
         Administrator administrator = new Administrator();
 
         treatId(id, administrator);
@@ -149,26 +151,6 @@ public class AdministratorForm {
         }
     }
 
-    /**
-     * Checks administrator's login into database
-     * @param request
-     * @return administrator
-     */
-    public Administrator checkLogin(HttpServletRequest request) {
-        String        emailAddress  = getFieldVar(request, EMAIL_ADDRESS_FIELD);
-        String        password      = getFieldVar(request, PASSWORD_FIELD);
-        Administrator administrator = new Administrator();
-
-        treatEmailAddress(emailAddress, administrator);
-        administrator.setPassword(cryptPassword(password));
-        administrator = administratorDao.checkLogin(administrator);
-        treatLogin(administrator);
-        administrator.setPassword(cryptPassword(password));
-        administrator.setEmailAddress(emailAddress);
-
-        return administrator;
-    }
-
     /**
      * Treats administrator's id
      * @param id
@@ -238,8 +220,10 @@ public class AdministratorForm {
     private void treatPassword(String password, String confirmation, Administrator administrator) {
         try {
             validatePassword(password, confirmation);
-            password = cryptPassword(password);
-            administrator.setPassword(password);
+            administrator.setPassword(PasswordHasher.getInstance().hash(password));
+        }
+        catch (PasswordHashingException e) {
+            setError(PASSWORD_FIELD, "The server is busy, please try again in a moment");
         }
         catch (Exception e) {
             setError(PASSWORD_FIELD, e.getMessage());
@@ -247,19 +231,6 @@ public class AdministratorForm {
         }
     }
 
-    /**
-     * Treats administrator's login
-     * @param administrator
-     */
-    private void treatLogin(Administrator administrator) {
-        try {
-            validateLogin(administrator);
-        }
-        catch (Exception e) {
-            setError("login", e.getMessage());
-        }
-    }
-
     /**
      * Treats an administrator
      * @param administrator
@@ -372,17 +343,6 @@ public class AdministratorForm {
         }
     }
 
-    /**
-     * Validates administrator's login
-     * @param administrator
-     * @throws Exception
-     */
-    private void validateLogin(Administrator administrator) throws Exception {
-        if (administrator.getId() == null) {
-            throw new Exception("Your email address or password is incorrect");
-        }
-    }
-
     /**
      * Validates administrator's creator
      * @param creator
@@ -394,30 +354,6 @@ public class AdministratorForm {
         }
     }
 
-    /**
-     * Cryptes a password (SHA-256)
-     * @param password
-     * @return cryptedPassword
-     */
-    private String cryptPassword(String password) {
-        StringBuffer cryptedPassword = new StringBuffer();
-
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(password.getBytes());
-            byte byteData[] = md.digest();
-
-            for (int i = 0; i < byteData.length; i++) {
-                cryptedPassword.append(Integer.toString((byteData[i] & 0xff) + 0x100, 16).substring(1));
-            }
-        }
-        catch (Exception e) {
-
-        }
-
-        return cryptedPassword.toString();
-    }
-
     /**
      * Returns errors
      * @return errors
@@ -452,6 +388,17 @@ public class AdministratorForm {
         }
     }
 
+    /**
+     * Returns the administrator logged in, built from the principal of the session
+     * @param request
+     * @return administrator
+     */
+    private static Administrator getAdministrator(HttpServletRequest request) {
+        Principal principal = (Principal) getSessionVar(request, USER_SESSION);
+
+        return ((principal == null) ? null : principal.toAdministrator());
+    }
+
     /**
      * Returns a session variable
      * @param request
@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Set;
 
 import beans.Administrator;
+import beans.Principal;
 import beans.Group;
 import dao.GroupDao;
 
@@ -13,7 +14,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
 public class GroupForm {
-    private static final String              ADMINISTRATOR_SESSION = "administratorSession";
+    private static final String              USER_SESSION          = "userSession";
     private static final String              ID_FIELD              = "id";
     private static final String              NAME_FIELD            = "name";
     private              Map<String, String> errors                = new HashMap<String, String>();
@@ -34,7 +35,7 @@ public class GroupForm {
      */
     public Group create(HttpServletRequest request) {
         String        name    = getFieldVar(request, NAME_FIELD);
-        Administrator creator = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator creator = getAdministrator(request);
         Group         group   = new Group();
 
         treatName(name, group);
@@ -74,7 +75,7 @@ public class GroupForm {
     public Group edit(HttpServletRequest request) {
         String        id     = getFieldVar(request, ID_FIELD);
         String        name   = getFieldVar(request, NAME_FIELD);
-        Administrator editor = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor = getAdministrator(request);
         Group         group  = new Group();
 
         treatId(id, group);
@@ -110,7 +111,7 @@ public class GroupForm {
      */
     public void delete(HttpServletRequest request) {
         String        id     = getFieldVar(request, ID_FIELD);
-        Administrator editor = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor = getAdministrator(request);
         Group         group  = new Group();
 
         treatId(id, group);
@@ -264,6 +265,17 @@ public class GroupForm {
         return (((var == null) || (var.trim().length() == 0)) ? null : var.trim());
     }
 
+    /**
+     * Returns the administrator logged in, built from the principal of the session
+     * @param request
+     * @return administrator
+     */
+    private static Administrator getAdministrator(HttpServletRequest request) {
+        Principal principal = (Principal) getSessionVar(request, USER_SESSION);
+
+        return ((principal == null) ? null : principal.toAdministrator());
+    }
+
     /**
      * Returns a session var
      * @param request
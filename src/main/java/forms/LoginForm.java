@@ -0,0 +1,158 @@
+package forms;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import beans.Student;
+import beans.User;
+import dao.DAOException;
+import config.LoginThrottle;
+import dao.LoginDao;
+import utilities.PasswordHashingException;
+
+public class LoginForm {
+    private static final String              EMAIL_ADDRESS_FIELD = "emailAddress";
+    private static final String              PASSWORD_FIELD      = "password";
+    private static final String              LOGIN_FIELD         = "login";
+    private              Map<String, String> errors              = new HashMap<String, String>();
+    private LoginDao      loginDao;
+    private LoginThrottle loginThrottle;
+    private boolean       throttled;
+
+    /**
+     * Constructor
+     * @param loginDao
+     * @param loginThrottle
+     */
+    public LoginForm(LoginDao loginDao, LoginThrottle loginThrottle) {
+        this.loginDao = loginDao;
+        this.loginThrottle = loginThrottle;
+    }
+
+    /**
+     * Checks a login into database with one query, whatever the profile of the user,
+     * an email or IP address with too many recent failures is refused before any check
+     * @param request
+     * @return user Student, Teacher or Administrator, a student without id when the login is incorrect
+     */
+    public User checkLogin(HttpServletRequest request) {
+        String emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
+        String password     = getFieldVar(request, PASSWORD_FIELD);
+        String address      = request.getRemoteAddr();
+        String key          = (emailAddress == null) ? null : emailAddress.toLowerCase();
+        User   user         = null;
+
+        try {
+            validateThrottle(key, address);
+            validateEmailAddress(emailAddress);
+            validatePassword(password);
+            user = loginDao.checkLogin(key, password);
+            validateLogin(user);
+            loginThrottle.recordSuccess(key);
+        }
+        catch (DAOException e) {
+            throw e;
+        }
+        catch (PasswordHashingException e) {
+            setError(LOGIN_FIELD, "The server is busy, please try again in a moment");
+            user = new Student();
+            user.setEmailAddress(emailAddress);
+        }
+        catch (Exception e) {
+            if (!throttled) {
+                loginThrottle.recordFailure(key, address);
+            }
+
+            setError(LOGIN_FIELD, e.getMessage());
+            user = new Student();
+            user.setEmailAddress(emailAddress);
+        }
+
+        return user;
+    }
+
+    /**
+     * Validates that the email and IP addresses are not throttled
+     * @param emailAddress
+     * @param address
+     * @throws Exception
+     */
+    private void validateThrottle(String emailAddress, String address) throws Exception {
+        if (loginThrottle.isThrottled(emailAddress, address)) {
+            throttled = true;
+            throw new Exception("Too many failed attempts, please try again in a few minutes");
+        }
+    }
+
+    /**
+     * Validates the email address of a login
+     * @param emailAddress
+     * @throws Exception
+     */
+    private void validateEmailAddress(String emailAddress) throws Exception {
+        if ((emailAddress == null) || (emailAddress.length() > 100) || (!emailAddress.matches("[a-zA-Z0-9@.-_]+@[a-zA-Z.]{2,20}.[a-zA-Z]{2,3}"))) {
+            throw new Exception("Your email address or password is incorrect");
+        }
+    }
+
+    /**
+     * Validates the password of a login
+     * @param password
+     * @throws Exception
+     */
+    private void validatePassword(String password) throws Exception {
+        if (password == null) {
+            throw new Exception("Your email address or password is incorrect");
+        }
+    }
+
+    /**
+     * Validates a login
+     * @param user
+     * @throws Exception
+     */
+    private void validateLogin(User user) throws Exception {
+        if (user == null) {
+            throw new Exception("Your email address or password is incorrect");
+        }
+    }
+
+    /**
+     * Returns errors
+     * @return errors
+     */
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns true if the login was refused because of too many failed attempts
+     * @return throttled
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * Saves an error
+     * @param field
+     * @param message
+     */
+    private void setError(String field, String message) {
+        errors.put(field, message);
+    }
+
+    /**
+     * Returns a field variable
+     * @param request
+     * @param fieldVar
+     * @return var
+     */
+    private static String getFieldVar(HttpServletRequest request, String fieldVar) {
+        String var = request.getParameter(fieldVar);
+
+        return ((var == null) || (var.trim().length() == 0) ? null : var.trim());
+    }
+}
@@ -1,31 +1,51 @@
 package forms;
 
-import java.security.MessageDigest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
+import dao.DAOException;
+import dao.Page;
+import dao.PageRequest;
 import dao.StudentDao;
 
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import javax.servlet.http.Part;
 
+import utilities.CsvReader;
 import utilities.Mail;
+import utilities.MailConfigurationException;
+import utilities.PasswordHasher;
+import utilities.PasswordHashingException;
 import beans.Administrator;
+import beans.Principal;
 import beans.Student;
 import beans.Group;
 
 public class StudentForm {
-    private static final String              STUDENT_SESSION       = "studentSession";
-    private static final String              ADMINISTRATOR_SESSION = "administratorSession";
-    private static final String              ID_FIELD              = "id";
-    private static final String              LAST_NAME_FIELD       = "lastName";
-    private static final String              FIRST_NAME_FIELD      = "firstName";
-    private static final String              EMAIL_ADDRESS_FIELD   = "emailAddress";
-    private static final String              GROUP_FIELD           = "group";
-    private static final String              PASSWORD_FIELD        = "password";
-    private              Map<String, String> errors                = new HashMap<String, String>();
+    private static final String               USER_SESSION          = "userSession";
+    private static final String               ID_FIELD              = "id";
+    private static final String               LAST_NAME_FIELD       = "lastName";
+    private static final String               FIRST_NAME_FIELD      = "firstName";
+    private static final String               EMAIL_ADDRESS_FIELD   = "emailAddress";
+    private static final String               GROUP_FIELD           = "group";
+    private static final String               SIZE_FIELD            = "size";
+    private static final String               AFTER_FIELD           = "after";
+    private static final String               FILE_FIELD            = "file";
+    private static final int                  IMPORT_BATCH_SIZE     = 500;
+    private              Map<String, String>  errors                = new HashMap<String, String>();
+    private              Map<Integer, String> lineErrors            = new TreeMap<Integer, String>();
+    private              int                  imported              = 0;
     private StudentDao studentDao;
 
     /**
@@ -46,7 +66,7 @@ public class StudentForm {
         String        firstName    = getFieldVar(request, FIRST_NAME_FIELD);
         String        emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
         String        groupId      = getFieldVar(request, GROUP_FIELD);
-        Administrator creator      = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator creator      = getAdministrator(request);
         Student       student      = new Student();
 
         treatLastName(lastName, student);
@@ -65,17 +85,91 @@ public class StudentForm {
     }
 
     /**
-     * Searches one or more students into database
+     * Imports the students of an uploaded CSV file (last name, first name, email address) into the chosen group,
+     * the file is read record by record and inserted in batches, a rejected line does not stop the import
      * @param request
-     * @return students
      */
-    public Set<Student> search(HttpServletRequest request) {
+    public void importStudents(HttpServletRequest request) {
+        String                groupId = getFieldVar(request, GROUP_FIELD);
+        Administrator         creator = getAdministrator(request);
+        Student               model   = new Student();
+        Set<String>           seen    = new HashSet<String>();
+        List<ImportedStudent> batch   = new ArrayList<ImportedStudent>();
+        Part                  file;
+        List<String>          record;
+
+        treatGroup(groupId, model);
+        treatCreator(creator, model);
+
+        try {
+            file = request.getPart(FILE_FIELD);
+        }
+        catch (IOException | ServletException e) {
+            file = null;
+        }
+
+        if ((file == null) || (file.getSize() == 0)) {
+            setError(FILE_FIELD, "Please select a CSV file");
+        }
+
+        if (!errors.isEmpty()) {
+            return;
+        }
+
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)))) {
+            while ((record = reader.readRecord()) != null) {
+                int     line    = reader.getLine();
+                Student student = new Student();
+
+                if ((record.size() == 1) && record.get(0).isEmpty()) {
+                    continue;
+                }
+
+                // Header line
+                if ((line == 1) && (record.size() > 2) && !record.get(2).contains("@")) {
+                    continue;
+                }
+
+                try {
+                    treatRecord(record, student);
+                }
+                catch (Exception e) {
+                    lineErrors.put(line, e.getMessage());
+                    continue;
+                }
+
+                if (!seen.add(student.getEmailAddress())) {
+                    lineErrors.put(line, "This email address is already in the file");
+                    continue;
+                }
+
+                student.setGroup(model.getGroup());
+                student.setCreator(model.getCreator());
+                batch.add(new ImportedStudent(line, student, generatePassword(8)));
+
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    importBatch(batch);
+                }
+            }
+
+            importBatch(batch);
+        }
+        catch (IOException e) {
+            setError(FILE_FIELD, "The file could not be read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Searches a page of students into database
+     * @param request
+     * @return page
+     */
+    public Page<Student> search(HttpServletRequest request) {
         String       id           = getFieldVar(request, ID_FIELD);
         String       lastName     = getFieldVar(request, LAST_NAME_FIELD);
         String       firstName    = getFieldVar(request, FIRST_NAME_FIELD);
         String       emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
         String       groupId      = getFieldVar(request, GROUP_FIELD);
-        Set<Student> students     = new HashSet<Student>();
         Student      student      = new Student();
         Group        group        = new Group();
 
@@ -91,9 +185,8 @@ public class StudentForm {
         student.setFirstName(firstName);
         student.setEmailAddress(emailAddress);
         student.setGroup(group);
-        students = studentDao.search(student);
 
-        return students;
+        return studentDao.search(student, getPageRequest(request));
     }
 
     /**
@@ -107,7 +200,7 @@ public class StudentForm {
         String        firstName    = getFieldVar(request, FIRST_NAME_FIELD);
         String        emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
         String        groupId      = getFieldVar(request, GROUP_FIELD);
-        Administrator editor       = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor       = getAdministrator(request);
         Student       student      = new Student();
 
         treatId(id, student);
@@ -125,26 +218,6 @@ public class StudentForm {
         return student;
     }
 
-    /**
-     * Checks student's login into database
-     * @param request
-     * @return student
-     */
-    public Student checkLogin(HttpServletRequest request) {
-        String  emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
-        String  password     = getFieldVar(request, PASSWORD_FIELD);
-        Student student      = new Student();
-
-        treatEmailAddress(emailAddress, student);
-        student.setPassword(cryptPassword(password));
-        student = studentDao.checkLogin(student);
-        treatLogin(student);
-        student.setPassword(cryptPassword(password));
-        student.setEmailAddress(emailAddress);
-
-        return student;
-    }
-
     /**
      * Returns a student into database
      * @param request
@@ -167,7 +240,7 @@ public class StudentForm {
      */
     public void delete(HttpServletRequest request) {
         String        id      = getFieldVar(request, ID_FIELD);
-        Administrator editor  = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor  = getAdministrator(request);
         Student       student = new Student();
 
         treatId(id, student);
@@ -181,7 +254,7 @@ public class StudentForm {
      * @return student
      */
     public Student getAllInfos(HttpServletRequest request) {
-        Student student = (Student) getSessionVar(request, STUDENT_SESSION);
+        Student student = getStudent(request);
 
         return studentDao.getAll(student);
     }
@@ -192,14 +265,97 @@ public class StudentForm {
      */
     public void resetPassword(HttpServletRequest request) {
         String        id      = getFieldVar(request, ID_FIELD);
-        Administrator editor  = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor  = getAdministrator(request);
         Student       student = new Student();
 
         treatId(id, student);
         student = studentDao.getProfile(student);
         treatPassword(student, true);
         treatEditor(editor, student);
-        studentDao.editPassword(student);
+
+        if (errors.isEmpty()) {
+            studentDao.editPassword(student);
+        }
+    }
+
+    /**
+     * Inserts a batch of imported students then queues their welcome mail, the batch is emptied
+     * @param batch
+     */
+    private void importBatch(List<ImportedStudent> batch) {
+        List<Student> students  = new ArrayList<Student>();
+        List<String>  passwords = new ArrayList<String>();
+        List<String>  hashes;
+        Set<String>   existing;
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        for (ImportedStudent importedStudent : batch) {
+            passwords.add(importedStudent.password);
+        }
+
+        try {
+            // The passwords of a batch are hashed on all the workers of the pool at once
+            hashes = PasswordHasher.getInstance().hashAll(passwords);
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).student.setPassword(hashes.get(i));
+                students.add(batch.get(i).student);
+            }
+
+            existing = studentDao.importStudents(students);
+
+            for (ImportedStudent importedStudent : batch) {
+                if (existing.contains(importedStudent.student.getEmailAddress())) {
+                    lineErrors.put(importedStudent.line, "This student already exists");
+                }
+                else {
+                    imported++;
+                    queueWelcomeMail(importedStudent);
+                }
+            }
+        }
+        catch (DAOException | PasswordHashingException e) {
+            for (ImportedStudent importedStudent : batch) {
+                lineErrors.put(importedStudent.line, "The line could not be saved: " + e.getMessage());
+            }
+        }
+
+        batch.clear();
+    }
+
+    /**
+     * Queues the welcome mail of an imported student, the student is already saved so a failure is only reported on its line
+     * @param importedStudent
+     */
+    private void queueWelcomeMail(ImportedStudent importedStudent) {
+        try {
+            Mail.sendStudentPassword(importedStudent.student, importedStudent.password);
+        }
+        catch (MailConfigurationException e) {
+            lineErrors.put(importedStudent.line, "The student was created but the welcome mail could not be queued: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Treats a record of an imported file with the rules of the student form
+     * @param record
+     * @param student
+     * @throws Exception
+     */
+    private void treatRecord(List<String> record, Student student) throws Exception {
+        String lastName     = (record.size() > 0) ? record.get(0) : null;
+        String firstName    = (record.size() > 1) ? record.get(1) : null;
+        String emailAddress = (record.size() > 2) ? record.get(2) : null;
+
+        validateLastName(lastName);
+        validateFirstName(firstName);
+        validateEmailAddress(emailAddress);
+        student.setLastName(lastName.substring(0, 1).toUpperCase() + lastName.substring(1).toLowerCase());
+        student.setFirstName(firstName.substring(0, 1).toUpperCase() + firstName.substring(1).toLowerCase());
+        student.setEmailAddress(emailAddress.trim().toLowerCase());
     }
 
     /**
@@ -289,9 +445,11 @@ public class StudentForm {
 
         try {
             validatePassword(password);
+            student.setPassword(PasswordHasher.getInstance().hash(password));
             sendPassword(student, password, reset);
-            password = cryptPassword(password);
-            student.setPassword(password);
+        }
+        catch (PasswordHashingException e) {
+            setError("student", "The server is busy, please try again in a moment");
         }
         catch (Exception e) {
 
@@ -311,19 +469,6 @@ public class StudentForm {
         }
     }
 
-    /**
-     * Treats student's login
-     * @param student
-     */
-    private void treatLogin(Student student) {
-        try {
-            validateLogin(student);
-        }
-        catch (Exception e) {
-            setError("login", e.getMessage());
-        }
-    }
-
     /**
      * Treats student's creator
      * @param creator
@@ -431,17 +576,6 @@ public class StudentForm {
         }
     }
 
-    /**
-     * Validates student's login
-     * @param student
-     * @throws Exception
-     */
-    private void validateLogin(Student student) throws Exception {
-        if (student.getId() == null) {
-            throw new Exception("Your email address or password is incorrect");
-        }
-    }
-
     /**
      * Validates student's creator
      * @param creator
@@ -468,34 +602,9 @@ public class StudentForm {
             password.append(alphabet.charAt(y));
         }
 
-        System.out.println(password.toString());
-
         return password.toString();
     }
 
-    /**
-     * Cryptes student's password
-     * @param password
-     * @return cryptedPassword
-     */
-    private String cryptPassword(String password) {
-        StringBuffer cryptedPassword = new StringBuffer();
-
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(password.getBytes());
-            byte byteData[] = md.digest();
-
-            for (int i = 0; i < byteData.length; i++) {
-                cryptedPassword.append(Integer.toString((byteData[i] & 0xff) + 0x100, 16).substring(1));
-            }
-        }
-        catch (Exception e) {
-        }
-
-        return cryptedPassword.toString();
-    }
-
     /**
      * Sends student's login by mail
      * @param student
@@ -518,6 +627,22 @@ public class StudentForm {
         return errors;
     }
 
+    /**
+     * Returns the errors of the imported lines by line number
+     * @return lineErrors
+     */
+    public Map<Integer, String> getLineErrors() {
+        return lineErrors;
+    }
+
+    /**
+     * Returns the number of imported students
+     * @return imported
+     */
+    public int getImported() {
+        return imported;
+    }
+
     /**
      * Saves an error
      * @param field
@@ -527,6 +652,28 @@ public class StudentForm {
         errors.put(field, message);
     }
 
+    /**
+     * Returns the requested page, the total is only counted on the first page
+     * @param request
+     * @return pageRequest
+     */
+    private static PageRequest getPageRequest(HttpServletRequest request) {
+        String size     = getFieldVar(request, SIZE_FIELD);
+        String after    = getFieldVar(request, AFTER_FIELD);
+        int    pageSize = PageRequest.DEFAULT_SIZE;
+
+        try {
+            if (size != null) {
+                pageSize = Integer.parseInt(size);
+            }
+        }
+        catch (NumberFormatException e) {
+            pageSize = PageRequest.DEFAULT_SIZE;
+        }
+
+        return new PageRequest(pageSize, after, after == null);
+    }
+
     /**
      * Returns a field variable
      * @param request
@@ -539,6 +686,28 @@ public class StudentForm {
         return ((var == null) || (var.trim().length() == 0) ? null : var.trim());
     }
 
+    /**
+     * Returns the administrator logged in, built from the principal of the session
+     * @param request
+     * @return administrator
+     */
+    private static Administrator getAdministrator(HttpServletRequest request) {
+        Principal principal = (Principal) getSessionVar(request, USER_SESSION);
+
+        return ((principal == null) ? null : principal.toAdministrator());
+    }
+
+    /**
+     * Returns the student logged in, built from the principal of the session
+     * @param request
+     * @return student
+     */
+    private static Student getStudent(HttpServletRequest request) {
+        Principal principal = (Principal) getSessionVar(request, USER_SESSION);
+
+        return ((principal == null) ? null : principal.toStudent());
+    }
+
     /**
      * Returns a session variable
      * @param request
@@ -551,4 +720,19 @@ public class StudentForm {
 
         return ((object == null) ? null : object);
     }
-}
\ No newline at end of file
+
+    /**
+     * Student read from an imported file, with its line and its password before encryption
+     */
+    private static class ImportedStudent {
+        private int     line;
+        private Student student;
+        private String  password;
+
+        ImportedStudent(int line, Student student, String password) {
+            this.line = line;
+            this.student = student;
+            this.password = password;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package forms;
 
-import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,13 +9,18 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
 import beans.Administrator;
+import beans.Principal;
 import beans.Subject;
 import beans.Teacher;
 import beans.Group;
+import dao.Page;
+import dao.PageRequest;
 import dao.TeacherDao;
+import utilities.PasswordHasher;
+import utilities.PasswordHashingException;
 
 public class TeacherForm {
-    private static final String              ADMINISTRATOR_SESSION = "administratorSession";
+    private static final String              USER_SESSION          = "userSession";
     private static final String              ID_FIELD              = "id";
     private static final String              LAST_NAME_FIELD       = "lastName";
     private static final String              FIRST_NAME_FIELD      = "firstName";
@@ -25,6 +29,8 @@ public class TeacherForm {
     private static final String              CONFIRMATION_FIELD    = "confirmation";
     private static final String              GROUPS_FIELD          = "groups[]";
     private static final String              SUBJECTS_FIELD        = "subjects[]";
+    private static final String              SIZE_FIELD            = "size";
+    private static final String              AFTER_FIELD           = "after";
     private              Map<String, String> errors                = new HashMap<String, String>();
     private TeacherDao teacherDao;
 
@@ -49,7 +55,7 @@ public class TeacherForm {
         String        confirmation = getFieldVar(request, CONFIRMATION_FIELD);
         String[]      groups       = getFieldVars(request, GROUPS_FIELD);
         String[]      subjects     = getFieldVars(request, SUBJECTS_FIELD);
-        Administrator creator      = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator creator      = getAdministrator(request);
         Teacher       teacher      = new Teacher();
 
         treatLastName(lastName, teacher);
@@ -69,16 +75,15 @@ public class TeacherForm {
     }
 
     /**
-     * Searches one or more teachers into database
+     * Searches a page of teachers into database
      * @param request
-     * @return teachers
+     * @return page
      */
-    public Set<Teacher> search(HttpServletRequest request) {
+    public Page<Teacher> search(HttpServletRequest request) {
         String       id           = getFieldVar(request, ID_FIELD);
         String       lastName     = getFieldVar(request, LAST_NAME_FIELD);
         String       firstName    = getFieldVar(request, FIRST_NAME_FIELD);
         String       emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
-        Set<Teacher> teachers     = new HashSet<Teacher>();
         Teacher      teacher      = new Teacher();
 
         if (id != null) {
@@ -88,9 +93,8 @@ public class TeacherForm {
         teacher.setLastName(lastName);
         teacher.setFirstName(firstName);
         teacher.setEmailAddress(emailAddress);
-        teachers = teacherDao.search(teacher);
 
-        return teachers;
+        return teacherDao.search(teacher, getPageRequest(request));
     }
 
     /**
@@ -122,7 +126,7 @@ public class TeacherForm {
         String        confirmation = getFieldVar(request, CONFIRMATION_FIELD);
         String[]      groups       = getFieldVars(request, GROUPS_FIELD);
         String[]      subjects     = getFieldVars(request, SUBJECTS_FIELD);
-        Administrator editor       = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor       = getAdministrator(request);
         Teacher       teacher      = new Teacher();
 
         treatId(id, teacher);
@@ -151,7 +155,7 @@ public class TeacherForm {
      */
     public void delete(HttpServletRequest request) {
         String        id      = getFieldVar(request, ID_FIELD);
-        Administrator editor  = (Administrator) getSessionVar(request, ADMINISTRATOR_SESSION);
+        Administrator editor  = getAdministrator(request);
         Teacher       teacher = new Teacher();
 
         treatId(id, teacher);
@@ -160,26 +164,6 @@ public class TeacherForm {
 
     }
 
-    /**
-     * Checks teacher's login into database
-     * @param request
-     * @return teacher
-     */
-    public Teacher checkLogin(HttpServletRequest request) {
-        String  emailAddress = getFieldVar(request, EMAIL_ADDRESS_FIELD);
-        String  password     = getFieldVar(request, PASSWORD_FIELD);
-        Teacher teacher      = new Teacher();
-
-        treatEmailAddress(emailAddress, teacher);
-        teacher.setPassword(cryptPassword(password));
-        teacher = teacherDao.checkLogin(teacher);
-        treatLogin(teacher);
-        teacher.setPassword(cryptPassword(password));
-        teacher.setEmailAddress(emailAddress);
-
-        return teacher;
-    }
-
     /**
      * Treats teacher's id
      * @param id
@@ -225,19 +209,6 @@ public class TeacherForm {
         }
     }
 
-    /**
-     * Treats teacher's login
-     * @param teacher
-     */
-    private void treatLogin(Teacher teacher) {
-        try {
-            validateLogin(teacher);
-        }
-        catch (Exception e) {
-            setError("connexion", e.getMessage());
-        }
-    }
-
     /**
      * Treats teacher's email address
      * @param emailAddress
@@ -262,8 +233,10 @@ public class TeacherForm {
     private void treatPassword(String password, String confirmation, Teacher teacher) {
         try {
             validatePassword(password, confirmation);
-            password = cryptPassword(password);
-            teacher.setPassword(password);
+            teacher.setPassword(PasswordHasher.getInstance().hash(password));
+        }
+        catch (PasswordHashingException e) {
+            setError(PASSWORD_FIELD, "The server is busy, please try again in a moment");
         }
         catch (Exception e) {
             setError(PASSWORD_FIELD, e.getMessage());
@@ -437,17 +410,6 @@ public class TeacherForm {
         }
     }
 
-    /**
-     * Validates teacher's login
-     * @param teacher
-     * @throws Exception
-     */
-    private void validateLogin(Teacher teacher) throws Exception {
-        if (teacher.getId() == null) {
-            throw new Exception("Your email address or password is incorrect");
-        }
-    }
-
     /**
      * Validates teacher's creator
      * @param creator
@@ -459,30 +421,6 @@ public class TeacherForm {
         }
     }
 
-    /**
-     * Cryptes a password
-     * @param password
-     * @return cryptedPassword
-     */
-    private String cryptPassword(String password) {
-        StringBuffer cryptedPassword = new StringBuffer();
-
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(password.getBytes());
-            byte byteData[] = md.digest();
-
-            for (int i = 0; i < byteData.length; i++) {
-                cryptedPassword.append(Integer.toString((byteData[i] & 0xff) + 0x100, 16).substring(1));
-            }
-        }
-        catch (Exception e) {
-
-        }
-
-        return cryptedPassword.toString();
-    }
-
     /**
      * Returns errors
      * @return errors
@@ -500,6 +438,28 @@ public class TeacherForm {
         errors.put(field, message);
     }
 
+    /**
+     * Returns the requested page, the total is only counted on the first page
+     * @param request
+     * @return pageRequest
+     */
+    private static PageRequest getPageRequest(HttpServletRequest request) {
+        String size     = getFieldVar(request, SIZE_FIELD);
+        String after    = getFieldVar(request, AFTER_FIELD);
+        int    pageSize = PageRequest.DEFAULT_SIZE;
+
+        try {
+            if (size != null) {
+                pageSize = Integer.parseInt(size);
+            }
+        }
+        catch (NumberFormatException e) {
+            pageSize = PageRequest.DEFAULT_SIZE;
+        }
+
+        return new PageRequest(pageSize, after, after == null);
+    }
+
     /**
      * Returns a field variable
      * @param request
@@ -512,6 +472,17 @@ public class TeacherForm {
         return (((var == null) || (var.trim().length() == 0)) ? null : var.trim());
     }
 
+    /**
+     * Returns the administrator logged in, built from the principal of the session
+     * @param request
+     * @return administrator
+     */
+    private static Administrator getAdministrator(HttpServletRequest request) {
+        Principal principal = (Principal) getSessionVar(request, USER_SESSION);
+
+        return ((principal == null) ? null : principal.toAdministrator());
+    }
+
     /**
      * Returns a session variable
      * @param request
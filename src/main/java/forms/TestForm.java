@@ -1,34 +1,51 @@
 package forms;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import beans.*;
+import dao.DAOException;
+import dao.Page;
+import dao.PageRequest;
 import dao.TestDao;
 
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import javax.servlet.http.Part;
 
+import utilities.CsvReader;
 import beans.Subject;
 
 public class TestForm {
-    private static final String              TEACHER_SESSION   = "teacherSession";
-    private static final String              ID_FIELD          = "id";
-    private static final String              FORMAT_FIELD      = "format";
-    private static final String              TEACHER_FIELD     = "teacher";
-    private static final String              COEFFICIENT_FIELD = "coefficient";
-    private static final String              DATE_FIELD        = "date";
-    private static final String              SCORES_FIELD      = "scores";
-    private static final String              STUDENTS_FIELD    = "students";
-    private static final String              TITLE_FIELD       = "title";
-    private static final String              GROUP_FIELD       = "group";
-    private static final String              SUBJECT_FIELD     = "subject";
-    private static final String              AVERAGE_FIELD     = "average";
-    private              Map<String, String> errors            = new HashMap<String, String>();
+    private static final String               USER_SESSION      = "userSession";
+    private static final String               ID_FIELD          = "id";
+    private static final String               FORMAT_FIELD      = "format";
+    private static final String               TEACHER_FIELD     = "teacher";
+    private static final String               COEFFICIENT_FIELD = "coefficient";
+    private static final String               DATE_FIELD        = "date";
+    private static final String               SCORES_FIELD      = "scores";
+    private static final String               STUDENTS_FIELD    = "students";
+    private static final String               TITLE_FIELD       = "title";
+    private static final String               GROUP_FIELD       = "group";
+    private static final String               SUBJECT_FIELD     = "subject";
+    private static final String               AVERAGE_FIELD     = "average";
+    private static final String               SIZE_FIELD        = "size";
+    private static final String               AFTER_FIELD       = "after";
+    private static final String               FILE_FIELD        = "file";
+    private              Map<String, String>  errors            = new HashMap<String, String>();
+    private              Map<Integer, String> lineErrors        = new TreeMap<Integer, String>();
+    private              int                  imported          = 0;
     private TestDao testDao;
 
     /**
@@ -51,7 +68,7 @@ public class TestForm {
         String  coefficient = getFieldVar(request, COEFFICIENT_FIELD);
         String  groupId     = getFieldVar(request, GROUP_FIELD);
         String  subjectId   = getFieldVar(request, SUBJECT_FIELD);
-        Teacher teacher     = (Teacher) getSessionVar(request, TEACHER_SESSION);
+        Teacher teacher     = getTeacher(request);
         Test    test        = new Test();
 
         treatFormatId(format, test);
@@ -83,7 +100,7 @@ public class TestForm {
         String  subjectId   = getFieldVar(request, SUBJECT_FIELD);
         String  students    = getFieldVar(request, STUDENTS_FIELD);
         String  scores      = getFieldVar(request, SCORES_FIELD);
-        Teacher teacher     = (Teacher) getSessionVar(request, TEACHER_SESSION);
+        Teacher teacher     = getTeacher(request);
         Test    test        = new Test();
 
         treatId(id, test);
@@ -105,6 +122,112 @@ public class TestForm {
         return test;
     }
 
+    /**
+     * Imports the scores of a test from an uploaded CSV or TSV file (student id or email address, score),
+     * the students are matched against the group of the test and a rejected line does not stop the import
+     * @param request
+     * @return test
+     */
+    public Test importScores(HttpServletRequest request) {
+        String             id      = getFieldVar(request, ID_FIELD);
+        Teacher            teacher = getTeacher(request);
+        Test               test    = new Test();
+        Map<String, Long>  byEmail = new HashMap<String, Long>();
+        Set<Long>          roster  = new HashSet<Long>();
+        Map<Long, Integer> scored  = new HashMap<Long, Integer>();
+        Set<Score>         scores  = new HashSet<Score>();
+        Part               file;
+        List<String>       record;
+
+        treatId(id, test);
+        treatTeacher(teacher, test);
+
+        try {
+            file = request.getPart(FILE_FIELD);
+        }
+        catch (IOException | ServletException e) {
+            file = null;
+        }
+
+        if ((file == null) || (file.getSize() == 0)) {
+            setError(FILE_FIELD, "Please select a CSV file");
+        }
+
+        if (!errors.isEmpty()) {
+            return test;
+        }
+
+        for (Student student : testDao.getRoster(test)) {
+            byEmail.put(student.getEmailAddress().toLowerCase(), student.getId());
+            roster.add(student.getId());
+        }
+
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)))) {
+            while ((record = reader.readRecord()) != null) {
+                int    line        = reader.getLine();
+                String studentKey  = record.get(0);
+                String scoreString = (record.size() > 1) ? record.get(1) : null;
+                Score  score       = new Score();
+                Long   studentId;
+                float  value;
+
+                if ((record.size() == 1) && studentKey.isEmpty()) {
+                    continue;
+                }
+
+                // Header line, a first data row with a mistyped score is reported like the others
+                if ((line == 1) && isHeader(studentKey, byEmail)) {
+                    continue;
+                }
+
+                studentId = findStudent(studentKey, byEmail, roster);
+
+                try {
+                    validateStudentId((studentId == null) ? null : studentKey);
+                    validateScore(scoreString);
+                    value = Float.parseFloat(scoreString.replace(",", "."));
+                }
+                catch (NumberFormatException e) {
+                    lineErrors.put(line, "Please enter a decimal");
+                    continue;
+                }
+                catch (Exception e) {
+                    lineErrors.put(line, e.getMessage());
+                    continue;
+                }
+
+                if (scored.containsKey(studentId)) {
+                    lineErrors.put(line, "This student is already scored on line " + scored.get(studentId));
+                    continue;
+                }
+
+                scored.put(studentId, line);
+                score.setStudent(new Student());
+                score.getStudent().setId(studentId);
+                score.setScore(value);
+                scores.add(score);
+            }
+        }
+        catch (IOException e) {
+            setError(FILE_FIELD, "The file could not be read: " + e.getMessage());
+            return test;
+        }
+
+        if (!scores.isEmpty()) {
+            test.setScores(scores);
+
+            try {
+                testDao.importScores(test);
+                imported = scores.size();
+            }
+            catch (DAOException e) {
+                setError(FILE_FIELD, "The scores could not be saved: " + e.getMessage());
+            }
+        }
+
+        return test;
+    }
+
     /**
      * Return a test into database
      * @param request
@@ -121,11 +244,11 @@ public class TestForm {
     }
 
     /**
-     * Searches one or more tests into database
+     * Searches a page of tests into database
      * @param request
-     * @return tests
+     * @return page
      */
-    public Set<Test> search(HttpServletRequest request) {
+    public Page<Test> search(HttpServletRequest request) {
         String    id        = getFieldVar(request, ID_FIELD);
         String    date      = getFieldVar(request, DATE_FIELD);
         String    format    = getFieldVar(request, FORMAT_FIELD);
@@ -133,8 +256,7 @@ public class TestForm {
         String    groupId   = getFieldVar(request, GROUP_FIELD);
         String    subjectId = getFieldVar(request, SUBJECT_FIELD);
         String    average   = getFieldVar(request, AVERAGE_FIELD);
-        Set<Test> tests     = new TreeSet<Test>();
-        Teacher   teacher   = (Teacher) getSessionVar(request, TEACHER_SESSION);
+        Teacher   teacher   = getTeacher(request);
         Test      test      = new Test();
 
         treatId(id, test);
@@ -145,9 +267,8 @@ public class TestForm {
         treatDate(date, test);
         test.setTitle(title);
         test.setTeacher(teacher);
-        tests = testDao.search(test);
 
-        return tests;
+        return testDao.search(test, getPageRequest(request));
     }
 
     /**
@@ -157,7 +278,7 @@ public class TestForm {
     public void delete(HttpServletRequest request) {
         String  id      = getFieldVar(request, ID_FIELD);
         Test    test    = new Test();
-        Teacher teacher = (Teacher) getSessionVar(request, TEACHER_SESSION);
+        Teacher teacher = getTeacher(request);
 
         try {
             treatId(id, test);
@@ -380,6 +501,38 @@ public class TestForm {
         test.setScores(scoreList);
     }
 
+    /**
+     * Tells whether the key column of the first line is a header, neither a student id nor an email address of the group
+     * @param studentKey
+     * @param byEmail
+     * @return header
+     */
+    private static boolean isHeader(String studentKey, Map<String, Long> byEmail) {
+        return !studentKey.matches("[0-9]+") && !byEmail.containsKey(studentKey.toLowerCase());
+    }
+
+    /**
+     * Finds a student of the test group by id or email address
+     * @param studentKey
+     * @param byEmail
+     * @param roster
+     * @return studentId, null when the student is not in the group
+     */
+    private static Long findStudent(String studentKey, Map<String, Long> byEmail, Set<Long> roster) {
+        if (studentKey.contains("@")) {
+            return byEmail.get(studentKey.toLowerCase());
+        }
+
+        try {
+            Long studentId = Long.parseLong(studentKey);
+
+            return roster.contains(studentId) ? studentId : null;
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Validates test's id
      * @param id
@@ -510,6 +663,22 @@ public class TestForm {
         return errors;
     }
 
+    /**
+     * Returns the errors of the imported lines by line number
+     * @return lineErrors
+     */
+    public Map<Integer, String> getLineErrors() {
+        return lineErrors;
+    }
+
+    /**
+     * Returns the number of imported scores
+     * @return imported
+     */
+    public int getImported() {
+        return imported;
+    }
+
     /**
      * Sets an error
      * @param field
@@ -519,6 +688,28 @@ public class TestForm {
         errors.put(field, message);
     }
 
+    /**
+     * Returns the requested page, the total is only counted on the first page
+     * @param request
+     * @return pageRequest
+     */
+    private static PageRequest getPageRequest(HttpServletRequest request) {
+        String size     = getFieldVar(request, SIZE_FIELD);
+        String after    = getFieldVar(request, AFTER_FIELD);
+        int    pageSize = PageRequest.DEFAULT_SIZE;
+
+        try {
+            if (size != null) {
+                pageSize = Integer.parseInt(size);
+            }
+        }
+        catch (NumberFormatException e) {
+            pageSize = PageRequest.DEFAULT_SIZE;
+        }
+
+        return new PageRequest(pageSize, after, after == null);
+    }
+
     /**
      * Returns a field variable
      * @param request
@@ -531,6 +722,17 @@ public class TestForm {
         return ((var == null) || (var.trim().length() == 0) ? null : var.trim());
     }
 
+    /**
+     * Returns the teacher logged in, built from the principal of the session
+     * @param request
+     * @return teacher
+     */
+    private static Teacher getTeacher(HttpServletRequest request) {
+        Principal principal = (Principal) getSessionVar(request, USER_SESSION);
+
+        return ((principal == null) ? null : principal.toTeacher());
+    }
+
     /**
      * Returns a session variable
      * @param request
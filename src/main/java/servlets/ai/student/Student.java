@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import beans.Group;
 import dao.DAOFactory;
+import dao.Page;
 import dao.StudentDao;
 import dao.GroupDao;
 import forms.StudentForm;
@@ -20,6 +21,7 @@ public class Student extends HttpServlet {
     private static final String STUDENTS         = "students";
     private static final String GROUPS           = "groups";
     private static final String NUMB_STUDENTS    = "numbStudents";
+    private static final String PAGE             = "page";
     private static final String STUDENT_FORM     = "studentForm";
     private static final String VIEW             = "/WEB-INF/ai/student/index.xhtml";
     private StudentDao studentDao;
@@ -35,15 +37,16 @@ public class Student extends HttpServlet {
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        StudentForm        studentForm = new StudentForm(this.studentDao);
-        Set<beans.Student> students    = studentForm.search(request);
-        Group              groupe      = new Group();
-        Set<beans.Group>   groups      = this.groupDao.search(groupe);
+        StudentForm         studentForm = new StudentForm(this.studentDao);
+        Page<beans.Student> page        = studentForm.search(request);
+        Group               groupe      = new Group();
+        Set<beans.Group>    groups      = this.groupDao.search(groupe);
 
         request.setAttribute(STUDENT_FORM, studentForm);
-        request.setAttribute(STUDENTS, students);
+        request.setAttribute(STUDENTS, page.getItems());
+        request.setAttribute(PAGE, page);
         request.setAttribute(GROUPS, groups);
-        request.setAttribute(NUMB_STUDENTS, students.size());
+        request.setAttribute(NUMB_STUDENTS, page.getTotal());
         this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
     }
 
@@ -1,7 +1,6 @@
 package servlets.ai.teacher;
 
 import java.io.IOException;
-import java.util.Set;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -9,6 +8,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import dao.DAOFactory;
+import dao.Page;
 import dao.TeacherDao;
 import forms.TeacherForm;
 
@@ -17,6 +17,7 @@ public class Teacher extends HttpServlet {
     private static final String CONF_DAO_FACTORY = "daofactory";
     private static final String TEACHERS         = "teachers";
     private static final String NUMB_TEACHERS    = "numbTeachers";
+    private static final String PAGE             = "page";
     private static final String TEACHER_FORM     = "teacherForm";
     private static final String VIEW             = "/WEB-INF/ai/teacher/index.xhtml";
     private TeacherDao teacherDao;
@@ -30,12 +31,13 @@ public class Teacher extends HttpServlet {
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        TeacherForm        teacherForm = new TeacherForm(this.teacherDao);
-        Set<beans.Teacher> teachers    = teacherForm.search(request);
+        TeacherForm         teacherForm = new TeacherForm(this.teacherDao);
+        Page<beans.Teacher> page        = teacherForm.search(request);
 
         request.setAttribute(TEACHER_FORM, teacherForm);
-        request.setAttribute(TEACHERS, teachers);
-        request.setAttribute(NUMB_TEACHERS, teachers.size());
+        request.setAttribute(TEACHERS, page.getItems());
+        request.setAttribute(PAGE, page);
+        request.setAttribute(NUMB_TEACHERS, page.getTotal());
         this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
     }
 
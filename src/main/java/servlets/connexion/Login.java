@@ -9,27 +9,25 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
-import dao.AdministratorDao;
+import beans.Principal;
+import beans.User;
+import config.LoginThrottle;
 import dao.DAOFactory;
-import dao.StudentDao;
-import dao.TeacherDao;
-import forms.AdministratorForm;
-import forms.StudentForm;
-import forms.TeacherForm;
+import dao.LoginDao;
+import forms.LoginForm;
 
 @WebServlet("/login")
 public class Login extends HttpServlet {
     private static final String CONF_DAO_FACTORY      = "daofactory";
+    private static final String CONF_LOGIN_THROTTLE   = "loginthrottle";
+    private static final int    SC_TOO_MANY_REQUESTS  = 429;
     private static final String USER                  = "user";
-    private static final String STUDENT_SESSION       = "studentSession";
-    private static final String TEACHER_SESSION       = "teacherSession";
-    private static final String ADMINISTRATOR_SESSION = "administratorSession";
+    private static final String USER_SESSION          = "userSession";
     private static final String FORM                  = "form";
     private static final String VIEW                  = "/WEB-INF/login.xhtml";
-    private String           contextPath;
-    private AdministratorDao administratorDao;
-    private StudentDao       studentDao;
-    private TeacherDao       teacherForm;
+    private String        contextPath;
+    private LoginDao      loginDao;
+    private LoginThrottle loginThrottle;
 
     public Login() {
         super();
@@ -37,22 +35,16 @@ public class Login extends HttpServlet {
 
     public void init() throws ServletException {
         this.contextPath = getServletContext().getContextPath();
-        this.administratorDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getAdministratorDao();
-        this.studentDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getStudentDao();
-        this.teacherForm = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTeacherDao();
+        this.loginDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getLoginDao();
+        this.loginThrottle = (LoginThrottle) getServletContext().getAttribute(CONF_LOGIN_THROTTLE);
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HttpSession session = request.getSession();
+        HttpSession session   = request.getSession(false);
+        Object      principal = (session == null) ? null : session.getAttribute(USER_SESSION);
 
-        if (session.getAttribute(ADMINISTRATOR_SESSION) != null) {
-            response.sendRedirect(this.contextPath + "/ai/administrator");
-        }
-        else if (session.getAttribute(TEACHER_SESSION) != null) {
-            response.sendRedirect(this.contextPath + "/pi/test");
-        }
-        else if (session.getAttribute(STUDENT_SESSION) != null) {
-            response.sendRedirect(this.contextPath + "/ei/gradebook");
+        if (principal instanceof Principal) {
+            redirect((Principal) principal, response);
         }
         else {
             this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
@@ -60,32 +52,43 @@ public class Login extends HttpServlet {
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HttpSession         session           = request.getSession();
-        StudentForm         studentForm       = new StudentForm(this.studentDao);
-        TeacherForm         teacherForm       = new TeacherForm(this.teacherForm);
-        AdministratorForm   administratorForm = new AdministratorForm(this.administratorDao);
-        beans.Student       student           = studentForm.checkLogin(request);
-        beans.Teacher       teacher           = teacherForm.checkLogin(request);
-        beans.Administrator administrator     = administratorForm.checkLogin(request);
+        LoginForm   loginForm = new LoginForm(this.loginDao, this.loginThrottle);
+        User        user      = loginForm.checkLogin(request);
+        Principal   principal;
 
-        if (student.getId() != null) {
-            session.setAttribute(STUDENT_SESSION, student);
-            response.sendRedirect(this.contextPath + "/si/gradebook");
-        }
-        else if (teacher.getId() != null) {
-            session.setAttribute(TEACHER_SESSION, teacher);
-            response.sendRedirect(this.contextPath + "/ti/test");
+        if (!loginForm.getErrors().isEmpty()) {
+            if (loginForm.isThrottled()) {
+                response.setStatus(SC_TOO_MANY_REQUESTS);
+                response.setHeader("Retry-After", String.valueOf(this.loginThrottle.getRetryAfter()));
+            }
+
+            request.setAttribute(USER, user);
+            request.setAttribute(FORM, loginForm);
+            this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
+            return;
         }
-        else if (administrator.getId() != null) {
-            session.setAttribute(ADMINISTRATOR_SESSION, administrator);
+
+        // Only the identity of the user is kept in the session, the pages load the rest of it
+        principal = Principal.of(user);
+        request.getSession().setAttribute(USER_SESSION, principal);
+        redirect(principal, response);
+    }
+
+    /**
+     * Redirects a user to the home page of its profile
+     * @param principal
+     * @param response
+     * @throws IOException
+     */
+    private void redirect(Principal principal, HttpServletResponse response) throws IOException {
+        if (principal.isAdministrator()) {
             response.sendRedirect(this.contextPath + "/ai/administrator");
         }
+        else if (principal.isTeacher()) {
+            response.sendRedirect(this.contextPath + "/ti/test");
+        }
         else {
-            request.setAttribute(USER, student);
-            request.setAttribute(FORM, studentForm);
-            this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
+            response.sendRedirect(this.contextPath + "/si/gradebook");
         }
-
     }
-
 }
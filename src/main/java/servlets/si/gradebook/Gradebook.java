@@ -8,16 +8,19 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import config.RequestExecutor;
 import dao.DAOFactory;
 import dao.StudentDao;
 import forms.StudentForm;
 
-@WebServlet("/si/gradebook")
+@WebServlet(urlPatterns = "/si/gradebook", asyncSupported = true)
 public class Gradebook extends HttpServlet {
-    private static final String CONF_DAO_FACTORY = "daofactory";
-    private static final String STUDENT          = "student";
-    private static final String VIEW             = "/WEB-INF/si/gradebook.xhtml";
-    private StudentDao studentDao;
+    private static final String CONF_DAO_FACTORY      = "daofactory";
+    private static final String CONF_REQUEST_EXECUTOR = "requestexecutor";
+    private static final String STUDENT               = "student";
+    private static final String VIEW                  = "/WEB-INF/si/gradebook.xhtml";
+    private StudentDao      studentDao;
+    private RequestExecutor requestExecutor;
 
     public Gradebook() {
         super();
@@ -25,14 +28,19 @@ public class Gradebook extends HttpServlet {
 
     public void init() throws ServletException {
         this.studentDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getStudentDao();
+        this.requestExecutor = (RequestExecutor) getServletContext().getAttribute(CONF_REQUEST_EXECUTOR);
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        StudentForm   studentForm = new StudentForm(studentDao);
-        beans.Student student     = studentForm.getAllInfos(request);
+        this.requestExecutor.execute(request, response, detached -> {
+            StudentForm studentForm = new StudentForm(studentDao);
 
-        request.setAttribute(STUDENT, student);
-        this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
+            return studentForm.getAllInfos(detached);
+        }, student -> {
+            request.setAttribute(STUDENT, student);
+
+            return VIEW;
+        });
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
@@ -1,14 +1,17 @@
 package servlets.pi.test;
 
 import java.io.IOException;
-import java.util.Set;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import beans.Principal;
+import beans.Teacher;
 import dao.DAOFactory;
+import dao.Page;
+import dao.TeacherDao;
 import dao.TestDao;
 import forms.TestForm;
 
@@ -17,9 +20,13 @@ public class Test extends HttpServlet {
     private static final String CONF_DAO_FACTORY = "daofactory";
     private static final String TESTS            = "tests";
     private static final String NUMB_TESTS       = "numbTests";
+    private static final String PAGE             = "page";
     private static final String TEST_FORM        = "testForm";
+    private static final String TEACHER          = "teacher";
+    private static final String USER_SESSION     = "userSession";
     private static final String VIEW             = "/WEB-INF/ti/test/index.xhtml";
-    private TestDao testDao;
+    private TestDao    testDao;
+    private TeacherDao teacherDao;
 
     public Test() {
         super();
@@ -27,18 +34,32 @@ public class Test extends HttpServlet {
 
     public void init() throws ServletException {
         this.testDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestDao();
+        this.teacherDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTeacherDao();
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        TestForm        testForm = new TestForm(testDao);
-        Set<beans.Test> tests    = testForm.search(request);
+        TestForm         testForm = new TestForm(testDao);
+        Page<beans.Test> page     = testForm.search(request);
 
         request.setAttribute(TEST_FORM, testForm);
-        request.setAttribute(TESTS, tests);
-        request.setAttribute(NUMB_TESTS, tests.size());
+        request.setAttribute(TESTS, page.getItems());
+        request.setAttribute(TEACHER, getTeacher(request));
+        request.setAttribute(PAGE, page);
+        request.setAttribute(NUMB_TESTS, page.getTotal());
         this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
     }
+
+    /**
+     * Returns the teacher logged in with its groups and subjects
+     * @param request
+     * @return teacher
+     */
+    private Teacher getTeacher(HttpServletRequest request) {
+        Principal principal = (Principal) request.getSession().getAttribute(USER_SESSION);
+
+        return this.teacherDao.getLinks(principal.toTeacher());
+    }
 }
\ No newline at end of file
@@ -7,18 +7,27 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import beans.Principal;
+import beans.Teacher;
 import dao.DAOFactory;
+import dao.TeacherDao;
 import dao.TestDao;
+import dao.TestFormatDao;
 import forms.TestForm;
 
 @WebServlet("/ti/test/create")
 public class TestCreate extends HttpServlet {
     private static final String CONF_DAO_FACTORY = "daofactory";
+    private static final String FORMATS          = "formats";
     private static final String TEST             = "test";
     private static final String TEST_FORM        = "testForm";
+    private static final String TEACHER          = "teacher";
+    private static final String USER_SESSION     = "userSession";
     private static final String VIEW             = "/WEB-INF/ti/test/create.xhtml";
-    private String  contextPath;
-    private TestDao testDao;
+    private String        contextPath;
+    private TestDao       testDao;
+    private TeacherDao    teacherDao;
+    private TestFormatDao testFormatDao;
 
     public TestCreate() {
         super();
@@ -27,9 +36,13 @@ public class TestCreate extends HttpServlet {
     public void init() throws ServletException {
         this.contextPath = getServletContext().getContextPath();
         this.testDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestDao();
+        this.teacherDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTeacherDao();
+        this.testFormatDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestFormatDao();
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        request.setAttribute(FORMATS, this.testFormatDao.search());
+        request.setAttribute(TEACHER, getTeacher(request));
         this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
     }
 
@@ -43,7 +56,20 @@ public class TestCreate extends HttpServlet {
         else {
             request.setAttribute(TEST_FORM, testForm);
             request.setAttribute(TEST, test);
+            request.setAttribute(FORMATS, this.testFormatDao.search());
+            request.setAttribute(TEACHER, getTeacher(request));
             this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
         }
     }
+
+    /**
+     * Returns the teacher logged in with its groups and subjects
+     * @param request
+     * @return teacher
+     */
+    private Teacher getTeacher(HttpServletRequest request) {
+        Principal principal = (Principal) request.getSession().getAttribute(USER_SESSION);
+
+        return this.teacherDao.getLinks(principal.toTeacher());
+    }
 }
@@ -0,0 +1,68 @@
+package servlets.pi.test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.MultipartConfig;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import config.RequestExecutor;
+import dao.DAOFactory;
+import dao.TestDao;
+import forms.TestForm;
+
+@WebServlet(urlPatterns = "/ti/test/import", asyncSupported = true)
+@MultipartConfig(maxFileSize = 1048576, maxRequestSize = 1114112, fileSizeThreshold = 262144)
+public class TestImport extends HttpServlet {
+    private static final String CONF_DAO_FACTORY      = "daofactory";
+    private static final String CONF_REQUEST_EXECUTOR = "requestexecutor";
+    private static final String TEST                  = "test";
+    private static final String TEST_FORM             = "testForm";
+    private static final String VIEW                  = "/WEB-INF/ti/test/import.xhtml";
+    private TestDao         testDao;
+    private RequestExecutor requestExecutor;
+
+    public TestImport() {
+        super();
+    }
+
+    public void init() throws ServletException {
+        this.testDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestDao();
+        this.requestExecutor = (RequestExecutor) getServletContext().getAttribute(CONF_REQUEST_EXECUTOR);
+    }
+
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        this.requestExecutor.execute(request, response, detached -> {
+            TestForm            testForm   = new TestForm(this.testDao);
+            Map<String, Object> attributes = new HashMap<String, Object>();
+
+            attributes.put(TEST, testForm.get(detached));
+
+            return attributes;
+        }, attributes -> {
+            attributes.forEach(request::setAttribute);
+
+            return VIEW;
+        });
+    }
+
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        this.requestExecutor.execute(request, response, detached -> {
+            TestForm            testForm   = new TestForm(this.testDao);
+            Map<String, Object> attributes = new HashMap<String, Object>();
+
+            attributes.put(TEST, testForm.importScores(detached));
+            attributes.put(TEST_FORM, testForm);
+
+            return attributes;
+        }, attributes -> {
+            attributes.forEach(request::setAttribute);
+
+            return VIEW;
+        });
+    }
+}
@@ -1,22 +1,27 @@
 package servlets.pi.test;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import config.RequestExecutor;
 import dao.DAOFactory;
 import dao.TestDao;
 import forms.TestForm;
 
-@WebServlet("/ti/test/read")
+@WebServlet(urlPatterns = "/ti/test/read", asyncSupported = true)
 public class TestRead extends HttpServlet {
-    private static final String CONF_DAO_FACTORY = "daofactory";
-    private static final String TEST             = "test";
-    private static final String VIEW             = "/WEB-INF/ti/test/read.xhtml";
-    private TestDao testDao;
+    private static final String CONF_DAO_FACTORY      = "daofactory";
+    private static final String CONF_REQUEST_EXECUTOR = "requestexecutor";
+    private static final String TEST                  = "test";
+    private static final String VIEW                  = "/WEB-INF/ti/test/read.xhtml";
+    private TestDao         testDao;
+    private RequestExecutor requestExecutor;
 
     public TestRead() {
         super();
@@ -24,14 +29,22 @@ public class TestRead extends HttpServlet {
 
     public void init() throws ServletException {
         this.testDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestDao();
+        this.requestExecutor = (RequestExecutor) getServletContext().getAttribute(CONF_REQUEST_EXECUTOR);
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        TestForm   testForm = new TestForm(this.testDao);
-        beans.Test test     = testForm.get(request);
+        this.requestExecutor.execute(request, response, detached -> {
+            TestForm            testForm   = new TestForm(this.testDao);
+            Map<String, Object> attributes = new HashMap<String, Object>();
 
-        request.setAttribute(TEST, test);
-        this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
+            attributes.put(TEST, testForm.get(detached));
+
+            return attributes;
+        }, attributes -> {
+            attributes.forEach(request::setAttribute);
+
+            return VIEW;
+        });
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
@@ -1,24 +1,38 @@
 package servlets.pi.test;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import config.RequestExecutor;
+import beans.Principal;
+import beans.Teacher;
 import dao.DAOFactory;
+import dao.TeacherDao;
 import dao.TestDao;
+import dao.TestFormatDao;
 import forms.TestForm;
 
-@WebServlet("/ti/test/update")
+@WebServlet(urlPatterns = "/ti/test/update", asyncSupported = true)
 public class TestUpdate extends HttpServlet {
-    private static final String CONF_DAO_FACTORY = "daofactory";
-    private static final String TEST             = "test";
-    private static final String TEST_FORM        = "testForm";
-    private static final String VIEW             = "/WEB-INF/ti/test/update.xhtml";
-    private String  contextPath;
-    private TestDao testDao;
+    private static final String CONF_DAO_FACTORY      = "daofactory";
+    private static final String CONF_REQUEST_EXECUTOR = "requestexecutor";
+    private static final String FORMATS               = "formats";
+    private static final String TEST                  = "test";
+    private static final String TEST_FORM             = "testForm";
+    private static final String TEACHER               = "teacher";
+    private static final String USER_SESSION          = "userSession";
+    private static final String VIEW                  = "/WEB-INF/ti/test/update.xhtml";
+    private String          contextPath;
+    private TestDao         testDao;
+    private TeacherDao      teacherDao;
+    private TestFormatDao   testFormatDao;
+    private RequestExecutor requestExecutor;
 
     public TestUpdate() {
         super();
@@ -27,28 +41,63 @@ public class TestUpdate extends HttpServlet {
     public void init() throws ServletException {
         this.contextPath = getServletContext().getContextPath();
         this.testDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestDao();
+        this.teacherDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTeacherDao();
+        this.testFormatDao = ((DAOFactory) getServletContext().getAttribute(CONF_DAO_FACTORY)).getTestFormatDao();
+        this.requestExecutor = (RequestExecutor) getServletContext().getAttribute(CONF_REQUEST_EXECUTOR);
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        TestForm   testForm = new TestForm(this.testDao);
-        beans.Test test     = testForm.get(request);
+        this.requestExecutor.execute(request, response, detached -> {
+            TestForm            testForm   = new TestForm(this.testDao);
+            Map<String, Object> attributes = new HashMap<String, Object>();
 
-        request.setAttribute(TEST_FORM, testForm);
-        request.setAttribute(TEST, test);
-        this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
+            attributes.put(TEST, testForm.get(detached));
+            attributes.put(TEST_FORM, testForm);
+            attributes.put(FORMATS, this.testFormatDao.search());
+            attributes.put(TEACHER, getTeacher(detached));
+
+            return attributes;
+        }, attributes -> {
+            attributes.forEach(request::setAttribute);
+
+            return VIEW;
+        });
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        TestForm   testForm = new TestForm(this.testDao);
-        beans.Test test     = testForm.edit(request);
-
-        if (testForm.getErrors().isEmpty()) {
-            response.sendRedirect(this.contextPath + "/ti/test");
-        }
-        else {
-            request.setAttribute(TEST_FORM, testForm);
-            request.setAttribute(TEST, test);
-            this.getServletContext().getRequestDispatcher(VIEW).forward(request, response);
-        }
+        this.requestExecutor.execute(request, response, detached -> {
+            TestForm            testForm   = new TestForm(this.testDao);
+            Map<String, Object> attributes = new HashMap<String, Object>();
+
+            attributes.put(TEST, testForm.edit(detached));
+            attributes.put(TEST_FORM, testForm);
+
+            if (!testForm.getErrors().isEmpty()) {
+                attributes.put(FORMATS, this.testFormatDao.search());
+                attributes.put(TEACHER, getTeacher(detached));
+            }
+
+            return attributes;
+        }, attributes -> {
+            if (((TestForm) attributes.get(TEST_FORM)).getErrors().isEmpty()) {
+                response.sendRedirect(this.contextPath + "/ti/test");
+                return null;
+            }
+
+            attributes.forEach(request::setAttribute);
+
+            return VIEW;
+        });
+    }
+
+    /**
+     * Returns the teacher logged in with its groups and subjects
+     * @param request
+     * @return teacher
+     */
+    private Teacher getTeacher(HttpServletRequest request) {
+        Principal principal = (Principal) request.getSession().getAttribute(USER_SESSION);
+
+        return this.teacherDao.getLinks(principal.toTeacher());
     }
 }
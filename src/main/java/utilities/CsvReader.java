@@ -0,0 +1,129 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvReader implements Closeable {
+    private static final int QUOTE = '"';
+    private Reader reader;
+    private int    separator = -1;
+    private int    line      = 0;
+    private int    next      = -2;
+
+    /**
+     * Constructor, the separator (comma, semicolon or tab) is taken from the first line
+     * @param reader
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record, a quoted field may hold separators, quotes doubled and line breaks
+     * @return fields, null at the end of the file
+     * @throws IOException
+     */
+    public List<String> readRecord() throws IOException {
+        List<String>  fields  = new ArrayList<String>();
+        StringBuilder field   = new StringBuilder();
+        boolean       quoted  = false;
+        boolean       started = false;
+        int           c;
+
+        while ((c = read()) != -1) {
+            started = true;
+
+            if (quoted) {
+                if (c != QUOTE) {
+                    field.append((char) c);
+                }
+                else if (peek() == QUOTE) {
+                    field.append((char) read());
+                }
+                else {
+                    quoted = false;
+                }
+            }
+            else if ((c == QUOTE) && (field.length() == 0)) {
+                quoted = true;
+            }
+            else if ((c == '\n') || (c == '\r')) {
+                if ((c == '\r') && (peek() == '\n')) {
+                    read();
+                }
+
+                break;
+            }
+            else if (isSeparator(c)) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            }
+            else {
+                field.append((char) c);
+            }
+        }
+
+        if (!started) {
+            return null;
+        }
+
+        fields.add(field.toString().trim());
+        line++;
+
+        return fields;
+    }
+
+    /**
+     * Returns the number of the last record read, starting at 1
+     * @return line
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns true if the character separates fields, the first separator met is kept for the whole file
+     * @param c
+     * @return separator
+     */
+    private boolean isSeparator(int c) {
+        if (separator == -1 && ((c == ',') || (c == ';') || (c == '\t'))) {
+            separator = c;
+        }
+
+        return c == separator;
+    }
+
+    /**
+     * Reads a character
+     * @return character, -1 at the end of the file
+     * @throws IOException
+     */
+    private int read() throws IOException {
+        int c = peek();
+
+        next = -2;
+
+        return c;
+    }
+
+    /**
+     * Returns the next character without consuming it
+     * @return character, -1 at the end of the file
+     * @throws IOException
+     */
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+        }
+
+        return next;
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+}
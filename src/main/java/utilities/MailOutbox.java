@@ -0,0 +1,561 @@
+package utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+public class MailOutbox {
+    private static final String PROPERTIES_FILE       = "utilities/mail.properties";
+    private static final String PROPERTY_PROTOCOL     = "protocol";
+    private static final String PROPERTY_HOST         = "host";
+    private static final String PROPERTY_PORT         = "port";
+    private static final String PROPERTY_USERNAME     = "username";
+    private static final String PROPERTY_PASSWORD     = "password";
+    private static final String PROPERTY_STARTTLS     = "starttls";
+    private static final String PROPERTY_DIRECTORY    = "outbox.directory";
+    private static final String PROPERTY_MAX_ATTEMPTS = "outbox.maxAttempts";
+    private static final String PROPERTY_RETRY_DELAY  = "outbox.retryDelay";
+    private static final String PROPERTY_POLL         = "outbox.pollInterval";
+    private static final String PROPERTY_RETENTION    = "outbox.failedRetentionDays";
+    private static final String MESSAGE_SUFFIX        = ".mail";
+    private static final String FAILED_DIRECTORY      = "failed";
+    private static final long   MAX_RETRY_DELAY       = 3600000;
+    private static final long   PURGE_INTERVAL        = 3600000;
+
+    private static final boolean                  POSIX           = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private static final Set<PosixFilePermission> OWNER_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_FILE      = PosixFilePermissions.fromString("rw-------");
+    private static MailOutbox instance;
+    private final Session       session;
+    private final String        host;
+    private final int           port;
+    private final String        username;
+    private final String        password;
+    private final File          directory;
+    private final File          failedDirectory;
+    private final int           maxAttempts;
+    private final long          retryDelay;
+    private final long          pollInterval;
+    private final long          failedRetention;
+    private final Object        lock        = new Object();
+    private final AtomicInteger depth       = new AtomicInteger();
+    private final AtomicLong    sequence    = new AtomicLong();
+    private final AtomicLong    sentCount   = new AtomicLong();
+    private final AtomicLong    retryCount  = new AtomicLong();
+    private final AtomicLong    failedCount = new AtomicLong();
+    private Thread  sender;
+    private boolean running   = false;
+    private boolean signalled = false;
+    private long    lastPurge = 0;
+
+    /**
+     * Constructor, reads the SMTP server and the outbox settings once, the outbox directory must be configured
+     * since the messages hold passwords, it is made readable by the owner only
+     * @param properties
+     */
+    private MailOutbox(Properties properties) {
+        String protocol = properties.getProperty(PROPERTY_PROTOCOL, "smtp");
+        String spool    = properties.getProperty(PROPERTY_DIRECTORY, "").trim();
+
+        this.host = properties.getProperty(PROPERTY_HOST, "").trim();
+        this.port = getInt(properties, PROPERTY_PORT, 25);
+        this.username = emptyToNull(properties.getProperty(PROPERTY_USERNAME));
+        this.password = emptyToNull(properties.getProperty(PROPERTY_PASSWORD));
+        this.maxAttempts = getInt(properties, PROPERTY_MAX_ATTEMPTS, 8);
+        this.retryDelay = getInt(properties, PROPERTY_RETRY_DELAY, 30000);
+        this.pollInterval = getInt(properties, PROPERTY_POLL, 5000);
+        this.failedRetention = getInt(properties, PROPERTY_RETENTION, 7) * 86400000L;
+
+        if (spool.isEmpty()) {
+            throw new MailConfigurationException("La propriété " + PROPERTY_DIRECTORY + " doit indiquer le dossier d'envoi, réservé à l'utilisateur de l'application.");
+        }
+
+        this.directory = new File(spool);
+        this.failedDirectory = new File(directory, FAILED_DIRECTORY);
+
+        try {
+            createPrivateDirectory(directory);
+            createPrivateDirectory(failedDirectory);
+        }
+        catch (IOException e) {
+            throw new MailConfigurationException("Impossible de créer le dossier d'envoi " + failedDirectory.getAbsolutePath(), e);
+        }
+
+        properties.setProperty("mail.transport.protocol", protocol);
+        properties.setProperty("mail.smtp.host", host);
+        properties.setProperty("mail.smtp.port", String.valueOf(port));
+        properties.setProperty("mail.smtp.starttls.enable", properties.getProperty(PROPERTY_STARTTLS, "true").trim());
+
+        if (username != null) {
+            properties.setProperty("mail.smtp.user", username);
+            properties.setProperty("mail.from", username);
+        }
+
+        this.session = Session.getInstance(properties);
+        this.depth.set(listMessages().length);
+    }
+
+    /**
+     * Returns the outbox, created and started on first use with the messages left by a previous run
+     * @return outbox
+     */
+    public static synchronized MailOutbox getInstance() {
+        if (instance == null) {
+            instance = new MailOutbox(loadProperties());
+            instance.start();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Stops the outbox if it was started, the messages not sent yet stay in the outbox directory
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Writes a message to the outbox and wakes the sender up, the SMTP server is not contacted
+     * @param recipient
+     * @param topic
+     * @param content
+     */
+    public void enqueue(String recipient, String topic, String content) {
+        Properties message = new Properties();
+        String     name    = String.format("%013d-%06d", System.currentTimeMillis(), sequence.getAndIncrement() % 1000000);
+
+        message.setProperty("recipient", recipient);
+        message.setProperty("topic", topic);
+        message.setProperty("content", content);
+        message.setProperty("attempts", "0");
+        message.setProperty("nextAttempt", "0");
+
+        // Counted first, the sender may delete the message as soon as it is written
+        depth.incrementAndGet();
+
+        try {
+            write(new File(directory, name + MESSAGE_SUFFIX), message);
+        }
+        catch (IOException e) {
+            depth.decrementAndGet();
+            throw new MailConfigurationException("Impossible d'écrire le message dans le dossier d'envoi " + directory.getAbsolutePath(), e);
+        }
+
+        signal();
+    }
+
+    /**
+     * Returns the number of messages waiting in the outbox
+     * @return depth
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Starts the background sender
+     */
+    private void start() {
+        synchronized (lock) {
+            running = true;
+        }
+
+        sender = new Thread(this::drain, "mail-outbox");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Stops the background sender once the message being sent is done
+     */
+    private void shutdown() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+
+        try {
+            sender.join(pollInterval);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wakes the sender up
+     */
+    private void signal() {
+        synchronized (lock) {
+            signalled = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Sends the due messages until the outbox is stopped, waits for a new message or the next retry in between
+     */
+    private void drain() {
+        while (isRunning()) {
+            long wait;
+
+            try {
+                purgeFailedMessages();
+                wait = sendDueMessages();
+            }
+            catch (RuntimeException e) {
+                System.out.println("Échec de l'envoi des mails : " + e.getMessage());
+                wait = pollInterval;
+            }
+
+            synchronized (lock) {
+                try {
+                    if (!signalled && running) {
+                        lock.wait(Math.max(1, wait));
+                    }
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+
+                signalled = false;
+            }
+        }
+    }
+
+    /**
+     * Sends the due messages in order over one SMTP connection
+     * @return milliseconds until the next retry, at most the poll interval
+     */
+    private long sendDueMessages() {
+        Transport transport = null;
+        long      wait      = pollInterval;
+
+        try {
+            for (File file : listMessages()) {
+                Properties message;
+                long       nextAttempt;
+
+                if (!isRunning()) {
+                    break;
+                }
+
+                try {
+                    message = read(file);
+                }
+                catch (IOException e) {
+                    continue;
+                }
+
+                nextAttempt = Long.parseLong(message.getProperty("nextAttempt", "0"));
+
+                if (nextAttempt > System.currentTimeMillis()) {
+                    wait = Math.min(wait, nextAttempt - System.currentTimeMillis());
+                    continue;
+                }
+
+                try {
+                    if ((transport == null) || !transport.isConnected()) {
+                        transport = connect();
+                    }
+
+                    send(transport, message);
+                    delete(file);
+                    sentCount.incrementAndGet();
+                }
+                catch (MessagingException e) {
+                    System.out.println("Échec de l'envoi du mail à " + message.getProperty("recipient") + " : " + e.getMessage());
+                    retry(file, message);
+                    transport = close(transport);
+                }
+            }
+        }
+        finally {
+            close(transport);
+        }
+
+        return wait;
+    }
+
+    /**
+     * Opens a connection to the SMTP server, without authentication when no username is configured
+     * @return transport
+     * @throws MessagingException
+     */
+    private Transport connect() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+
+        transport.connect(host, port, username, password);
+
+        return transport;
+    }
+
+    /**
+     * Sends a message on an open connection
+     * @param transport
+     * @param message
+     * @throws MessagingException
+     */
+    private void send(Transport transport, Properties message) throws MessagingException {
+        MimeMessage mimeMessage = new MimeMessage(session);
+        String      recipient   = message.getProperty("recipient");
+
+        mimeMessage.setContent(message.getProperty("content"), "text/html; charset=utf-8");
+        mimeMessage.setSubject(message.getProperty("topic"), "utf-8");
+        mimeMessage.addRecipients(Message.RecipientType.TO, recipient);
+        mimeMessage.saveChanges();
+        transport.sendMessage(mimeMessage, new Address[]{new InternetAddress(recipient)});
+    }
+
+    /**
+     * Schedules another attempt with an exponential delay, or moves the message aside after the last attempt
+     * @param file
+     * @param message
+     */
+    private void retry(File file, Properties message) {
+        int  attempts = Integer.parseInt(message.getProperty("attempts", "0")) + 1;
+        long delay    = Math.min(retryDelay << Math.min(attempts - 1, 20), MAX_RETRY_DELAY);
+
+        try {
+            if (attempts >= maxAttempts) {
+                Files.move(file.toPath(), new File(failedDirectory, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                depth.decrementAndGet();
+                failedCount.incrementAndGet();
+                System.out.println("Mail à " + message.getProperty("recipient") + " abandonné après " + attempts + " tentatives.");
+                return;
+            }
+
+            message.setProperty("attempts", String.valueOf(attempts));
+            message.setProperty("nextAttempt", String.valueOf(System.currentTimeMillis() + delay));
+            write(file, message);
+            retryCount.incrementAndGet();
+        }
+        catch (IOException e) {
+            System.out.println("Impossible de reprogrammer le mail " + file.getName() + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the abandoned messages older than the retention, at most once an hour
+     */
+    private void purgeFailedMessages() {
+        long   now = System.currentTimeMillis();
+        File[] files;
+
+        if (now - lastPurge < PURGE_INTERVAL) {
+            return;
+        }
+
+        lastPurge = now;
+        files = failedDirectory.listFiles((dir, name) -> name.endsWith(MESSAGE_SUFFIX));
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if ((now - file.lastModified() > failedRetention) && !file.delete()) {
+                System.out.println("Impossible de supprimer le mail abandonné " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Removes a sent message from the outbox
+     * @param file
+     */
+    private void delete(File file) {
+        if (file.delete()) {
+            depth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the messages of the outbox, oldest first
+     * @return files
+     */
+    private File[] listMessages() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(MESSAGE_SUFFIX));
+
+        if (files == null) {
+            return new File[0];
+        }
+
+        Arrays.sort(files);
+
+        return files;
+    }
+
+    /**
+     * Writes a message next to its file then renames it, a message is never read half written
+     * @param file
+     * @param message
+     * @throws IOException
+     */
+    private static void write(File file, Properties message) throws IOException {
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        // Created readable by the owner only before the password is written into it
+        Files.deleteIfExists(temporary.toPath());
+
+        if (POSIX) {
+            Files.createFile(temporary.toPath(), PosixFilePermissions.asFileAttribute(OWNER_FILE));
+        }
+
+        try (OutputStream output = new FileOutputStream(temporary)) {
+            message.store(output, null);
+        }
+
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Creates a directory readable by the owner only, an existing one is restricted
+     * @param directory
+     * @throws IOException
+     */
+    private static void createPrivateDirectory(File directory) throws IOException {
+        if (!POSIX) {
+            Files.createDirectories(directory.toPath());
+            return;
+        }
+
+        if (!directory.isDirectory()) {
+            Files.createDirectories(directory.toPath(), PosixFilePermissions.asFileAttribute(OWNER_DIRECTORY));
+        }
+
+        Files.setPosixFilePermissions(directory.toPath(), OWNER_DIRECTORY);
+    }
+
+    /**
+     * Reads a message
+     * @param file
+     * @return message
+     * @throws IOException
+     */
+    private static Properties read(File file) throws IOException {
+        Properties message = new Properties();
+
+        try (InputStream input = new FileInputStream(file)) {
+            message.load(input);
+        }
+
+        return message;
+    }
+
+    /**
+     * Closes a connection silently
+     * @param transport
+     * @return null
+     */
+    private static Transport close(Transport transport) {
+        try {
+            if (transport != null) {
+                transport.close();
+            }
+        }
+        catch (MessagingException e) {
+            System.out.println("Échec de la fermeture de la connexion SMTP : " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Loads the mail properties
+     * @return properties
+     */
+    private static Properties loadProperties() {
+        Properties  properties        = new Properties();
+        ClassLoader classLoader       = Thread.currentThread().getContextClassLoader();
+        InputStream fichierProperties = classLoader.getResourceAsStream(PROPERTIES_FILE);
+
+        if (fichierProperties == null) {
+            throw new MailConfigurationException("Le fichier properties " + PROPERTIES_FILE + " est introuvable.");
+        }
+
+        try {
+            properties.load(fichierProperties);
+        }
+        catch (IOException e) {
+            throw new MailConfigurationException("Impossible de charger le fichier properties " + PROPERTIES_FILE, e);
+        }
+
+        return properties;
+    }
+
+    /**
+     * Returns an integer property or its default value
+     * @param properties
+     * @param name
+     * @param defaultValue
+     * @return value
+     */
+    private static int getInt(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty(name);
+
+        if ((value == null) || (value.trim().length() == 0)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new MailConfigurationException("La propriété " + name + " doit être un nombre entier.", e);
+        }
+    }
+
+    /**
+     * Returns null for an empty property
+     * @param value
+     * @return value
+     */
+    private static String emptyToNull(String value) {
+        return ((value == null) || (value.trim().length() == 0)) ? null : value.trim();
+    }
+
+    /**
+     * Returns true until the outbox is stopped
+     * @return running
+     */
+    private boolean isRunning() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * Returns outbox statistics
+     * @return statistics
+     */
+    public String toString() {
+        return "MailOutbox[directory=" + directory.getAbsolutePath() + ", depth=" + depth.get() + ", sent=" + sentCount.get()
+            + ", retries=" + retryCount.get() + ", failed=" + failedCount.get() + "]";
+    }
+}
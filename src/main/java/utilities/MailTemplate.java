@@ -0,0 +1,160 @@
+package utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MailTemplate {
+    private static final String                     TEMPLATES_PATH = "utilities/mail/";
+    private static final String                     OPENING        = "${";
+    private static final String                     CLOSING        = "}";
+    private static final ThreadLocal<StringBuilder> BUFFER         = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+    private final String[] fragments;
+    private final int[]    parameters;
+
+    /**
+     * Constructor
+     * @param fragments literal text, one more than the parameters
+     * @param parameters index of the value inserted after each fragment
+     */
+    private MailTemplate(String[] fragments, int[] parameters) {
+        this.fragments = fragments;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Loads and compiles a template of utilities/mail, its placeholders ${name} must be among the parameter names
+     * @param name file name without extension
+     * @param parameterNames names of the values given to render(), in order
+     * @return template
+     */
+    public static MailTemplate load(String name, String... parameterNames) {
+        return compile(name, read(TEMPLATES_PATH + name + ".html"), parameterNames);
+    }
+
+    /**
+     * Splits a template into literal fragments and parameter indexes
+     * @param name
+     * @param text
+     * @param parameterNames
+     * @return template
+     */
+    private static MailTemplate compile(String name, String text, String... parameterNames) {
+        List<String>  fragments  = new ArrayList<String>();
+        List<Integer> parameters = new ArrayList<Integer>();
+        List<String>  names      = Arrays.asList(parameterNames);
+        int           start      = 0;
+        int           opening;
+
+        while ((opening = text.indexOf(OPENING, start)) != -1) {
+            int closing = text.indexOf(CLOSING, opening);
+            int index;
+
+            if (closing == -1) {
+                break;
+            }
+
+            index = names.indexOf(text.substring(opening + OPENING.length(), closing).trim());
+
+            if (index == -1) {
+                throw new MailConfigurationException("Paramètre inconnu " + text.substring(opening, closing + 1) + " dans le modèle de mail " + name);
+            }
+
+            fragments.add(text.substring(start, opening));
+            parameters.add(index);
+            start = closing + CLOSING.length();
+        }
+
+        fragments.add(text.substring(start));
+
+        return new MailTemplate(fragments.toArray(new String[0]), parameters.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Renders the template, the values are HTML escaped
+     * @param values in the order of the parameter names
+     * @return content
+     */
+    public String render(String... values) {
+        StringBuilder buffer = BUFFER.get();
+
+        buffer.setLength(0);
+
+        for (int i = 0; i < parameters.length; i++) {
+            buffer.append(fragments[i]);
+            escape(values[parameters[i]], buffer);
+        }
+
+        buffer.append(fragments[parameters.length]);
+
+        return buffer.toString();
+    }
+
+    /**
+     * Appends a value with the HTML special characters escaped
+     * @param value
+     * @param buffer
+     */
+    private static void escape(String value, StringBuilder buffer) {
+        if (value == null) {
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '&':
+                    buffer.append("&amp;");
+                    break;
+                case '<':
+                    buffer.append("&lt;");
+                    break;
+                case '>':
+                    buffer.append("&gt;");
+                    break;
+                case '"':
+                    buffer.append("&quot;");
+                    break;
+                case '\'':
+                    buffer.append("&#39;");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+    }
+
+    /**
+     * Reads a template from the classpath
+     * @param path
+     * @return text
+     */
+    private static String read(String path) {
+        ClassLoader   classLoader = Thread.currentThread().getContextClassLoader();
+        InputStream   input       = classLoader.getResourceAsStream(path);
+        StringBuilder text        = new StringBuilder();
+        char[]        chunk       = new char[4096];
+        int           length;
+
+        if (input == null) {
+            throw new MailConfigurationException("Le modèle de mail " + path + " est introuvable.");
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            while ((length = reader.read(chunk)) != -1) {
+                text.append(chunk, 0, length);
+            }
+        }
+        catch (IOException e) {
+            throw new MailConfigurationException("Impossible de lire le modèle de mail " + path, e);
+        }
+
+        return text.toString();
+    }
+}
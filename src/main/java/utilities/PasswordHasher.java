@@ -0,0 +1,451 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+public class PasswordHasher {
+    private static final String PROPERTIES_FILE     = "utilities/password.properties";
+    private static final String PROPERTY_THREADS    = "threads";
+    private static final String PROPERTY_QUEUE_SIZE = "queueSize";
+    private static final String PROPERTY_TIMEOUT    = "timeout";
+    private static final String PROPERTY_ITERATIONS = "iterations";
+    private static final String ALGORITHM           = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX              = "pbkdf2";
+    private static final char   SEPARATOR           = '$';
+    private static final int    SALT_LENGTH         = 16;
+    private static final int    KEY_LENGTH          = 32;
+    private static final char[] HEX                 = "0123456789abcdef".toCharArray();
+    private static PasswordHasher instance;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore          slots;
+    private final SecureRandom       random        = new SecureRandom();
+    private final int                threads;
+    private final int                iterations;
+    private final long               timeout;
+    private final AtomicLong         hashCount     = new AtomicLong();
+    private final AtomicLong         rejectedCount = new AtomicLong();
+    private final AtomicLong         hashNanos     = new AtomicLong();
+    private final AtomicLong         maxHashNanos  = new AtomicLong();
+    private final AtomicLong         waitNanos     = new AtomicLong();
+    private final AtomicLong         maxWaitNanos  = new AtomicLong();
+
+    /**
+     * Constructor, the pool has one thread per processor unless configured, its queue is bounded
+     * @param properties
+     */
+    private PasswordHasher(Properties properties) {
+        AtomicInteger number    = new AtomicInteger();
+        int           queueSize = getInt(properties, PROPERTY_QUEUE_SIZE, 64);
+
+        this.threads = getInt(properties, PROPERTY_THREADS, Runtime.getRuntime().availableProcessors());
+        this.iterations = getInt(properties, PROPERTY_ITERATIONS, 120000);
+        this.timeout = getInt(properties, PROPERTY_TIMEOUT, 10000);
+        this.slots = new Semaphore(threads + queueSize);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + number.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the hasher, created on first use
+     * @return hasher
+     */
+    public static synchronized PasswordHasher getInstance() {
+        if (instance == null) {
+            instance = new PasswordHasher(loadProperties());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Stops the hasher if it was started
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Hashes a password with a new salt on the pool
+     * @param password
+     * @return hash pbkdf2$iterations$salt$key
+     * @throws PasswordHashingException when the pool is saturated
+     */
+    public String hash(String password) throws PasswordHashingException {
+        return await(submit(() -> derive(password)));
+    }
+
+    /**
+     * Hashes several passwords on the pool at the same time
+     * @param passwords
+     * @return hashes in the order of the passwords
+     * @throws PasswordHashingException when the pool is saturated
+     */
+    public List<String> hashAll(List<String> passwords) throws PasswordHashingException {
+        List<Future<String>> futures = new ArrayList<Future<String>>(passwords.size());
+        List<String>         hashes  = new ArrayList<String>(passwords.size());
+
+        try {
+            for (String password : passwords) {
+                futures.add(submit(() -> derive(password)));
+            }
+
+            for (Future<String> future : futures) {
+                hashes.add(await(future));
+            }
+        }
+        catch (PasswordHashingException e) {
+            for (Future<String> future : futures) {
+                future.cancel(false);
+            }
+
+            throw e;
+        }
+
+        return hashes;
+    }
+
+    /**
+     * Checks a password against a stored hash, either pbkdf2 or a legacy SHA-256
+     * @param password
+     * @param stored
+     * @return matches
+     * @throws PasswordHashingException when the pool is saturated
+     */
+    public boolean verify(String password, String stored) throws PasswordHashingException {
+        String[] parts;
+        int      storedIterations;
+        byte[]   salt;
+        byte[]   key;
+
+        if ((password == null) || (stored == null)) {
+            return false;
+        }
+
+        // A legacy hash costs one digest, it is not worth a trip through the pool
+        if (!stored.startsWith(PREFIX + SEPARATOR)) {
+            return MessageDigest.isEqual(toHex(sha256(password)).getBytes(), stored.getBytes());
+        }
+
+        parts = stored.split("\\" + SEPARATOR);
+
+        if (parts.length != 4) {
+            return false;
+        }
+
+        try {
+            storedIterations = Integer.parseInt(parts[1]);
+            salt = fromHex(parts[2]);
+            key = fromHex(parts[3]);
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(key, await(submit(() -> pbkdf2(password, salt, storedIterations, key.length))));
+    }
+
+    /**
+     * Returns true if a stored hash is a legacy SHA-256 or has fewer iterations than configured
+     * @param stored
+     * @return needsRehash
+     */
+    public boolean needsRehash(String stored) {
+        int start;
+        int end;
+
+        if ((stored == null) || !stored.startsWith(PREFIX + SEPARATOR)) {
+            return true;
+        }
+
+        start = PREFIX.length() + 1;
+        end = stored.indexOf(SEPARATOR, start);
+
+        try {
+            return (end == -1) || (Integer.parseInt(stored.substring(start, end)) < iterations);
+        }
+        catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Queues a hash on the pool, waiting for a slot at most the timeout
+     * @param task
+     * @return future
+     * @throws PasswordHashingException
+     */
+    private <T> Future<T> submit(Callable<T> task) throws PasswordHashingException {
+        long queued = System.nanoTime();
+
+        try {
+            if (!slots.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                rejectedCount.incrementAndGet();
+                throw new PasswordHashingException("Le calcul des mots de passe est saturé.");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingException("Calcul du mot de passe interrompu.", e);
+        }
+
+        // The slot is given back when the hash ends or is cancelled, even before it started
+        FutureTask<T> future = new FutureTask<T>(() -> {
+            long started = System.nanoTime();
+
+            record(waitNanos, maxWaitNanos, started - queued);
+
+            try {
+                return task.call();
+            }
+            finally {
+                record(hashNanos, maxHashNanos, System.nanoTime() - started);
+                hashCount.incrementAndGet();
+            }
+        }) {
+            protected void done() {
+                slots.release();
+            }
+        };
+
+        try {
+            executor.execute(future);
+        }
+        catch (RejectedExecutionException e) {
+            slots.release();
+            rejectedCount.incrementAndGet();
+            throw new PasswordHashingException("Le calcul des mots de passe est arrêté.", e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Waits for a hash at most the timeout
+     * @param future
+     * @return result
+     * @throws PasswordHashingException
+     */
+    private <T> T await(Future<T> future) throws PasswordHashingException {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            future.cancel(false);
+            rejectedCount.incrementAndGet();
+            throw new PasswordHashingException("Le calcul du mot de passe a dépassé " + timeout + " ms.", e);
+        }
+        catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingException("Calcul du mot de passe interrompu.", e);
+        }
+        catch (ExecutionException e) {
+            throw new PasswordHashingException(e.getCause());
+        }
+    }
+
+    /**
+     * Hashes a password with a new salt and the configured iterations
+     * @param password
+     * @return hash
+     * @throws GeneralSecurityException
+     */
+    private String derive(String password) throws GeneralSecurityException {
+        byte[]        salt = new byte[SALT_LENGTH];
+        StringBuilder hash = new StringBuilder(PREFIX.length() + 12 + 2 * (SALT_LENGTH + KEY_LENGTH));
+
+        random.nextBytes(salt);
+        hash.append(PREFIX).append(SEPARATOR).append(iterations).append(SEPARATOR);
+        appendHex(salt, hash);
+        hash.append(SEPARATOR);
+        appendHex(pbkdf2(password, salt, iterations, KEY_LENGTH), hash);
+
+        return hash.toString();
+    }
+
+    /**
+     * Derives a key from a password
+     * @param password
+     * @param salt
+     * @param iterations
+     * @param length in bytes
+     * @return key
+     * @throws GeneralSecurityException
+     */
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations, int length) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, length * 8);
+
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        }
+        finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Returns the SHA-256 digest of a password, as the passwords were hashed before pbkdf2
+     * @param password
+     * @return digest
+     */
+    private static byte[] sha256(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(password.getBytes());
+        }
+        catch (GeneralSecurityException e) {
+            throw new PasswordHashingException(e);
+        }
+    }
+
+    /**
+     * Returns bytes in lower case hexadecimal
+     * @param bytes
+     * @return hex
+     */
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Appends bytes in lower case hexadecimal
+     * @param bytes
+     * @param buffer
+     */
+    private static void appendHex(byte[] bytes, StringBuilder buffer) {
+        for (byte b : bytes) {
+            buffer.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+        }
+    }
+
+    /**
+     * Returns the bytes of an hexadecimal string
+     * @param hex
+     * @return bytes
+     * @throws IllegalArgumentException
+     */
+    private static byte[] fromHex(String hex) throws IllegalArgumentException {
+        byte[] bytes = new byte[hex.length() / 2];
+
+        if ((hex.length() % 2) != 0) {
+            throw new IllegalArgumentException(hex);
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low  = Character.digit(hex.charAt(2 * i + 1), 16);
+
+            if ((high == -1) || (low == -1)) {
+                throw new IllegalArgumentException(hex);
+            }
+
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Adds a duration to a total and keeps the max
+     * @param total
+     * @param max
+     * @param nanos
+     */
+    private static void record(AtomicLong total, AtomicLong max, long nanos) {
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Loads the password properties
+     * @return properties
+     */
+    private static Properties loadProperties() {
+        Properties  properties        = new Properties();
+        ClassLoader classLoader       = Thread.currentThread().getContextClassLoader();
+        InputStream fichierProperties = classLoader.getResourceAsStream(PROPERTIES_FILE);
+
+        if (fichierProperties == null) {
+            return properties;
+        }
+
+        try {
+            properties.load(fichierProperties);
+        }
+        catch (IOException e) {
+            throw new PasswordHashingException("Impossible de charger le fichier properties " + PROPERTIES_FILE, e);
+        }
+
+        return properties;
+    }
+
+    /**
+     * Returns an integer property or its default value
+     * @param properties
+     * @param name
+     * @param defaultValue
+     * @return value
+     */
+    private static int getInt(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty(name);
+
+        if ((value == null) || (value.trim().length() == 0)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new PasswordHashingException("La propriété " + name + " doit être un nombre entier.", e);
+        }
+    }
+
+    /**
+     * Returns hasher statistics, durations in milliseconds
+     * @return statistics
+     */
+    public String toString() {
+        long count = hashCount.get();
+
+        return "PasswordHasher[threads=" + threads + ", iterations=" + iterations + ", hashes=" + count + ", rejected=" + rejectedCount.get()
+            + ", queued=" + executor.getQueue().size()
+            + ", avgHash=" + ((count == 0) ? 0 : hashNanos.get() / count / 1000000) + ", maxHash=" + maxHashNanos.get() / 1000000
+            + ", avgWait=" + ((count == 0) ? 0 : waitNanos.get() / count / 1000000) + ", maxWait=" + maxWaitNanos.get() / 1000000 + "]";
+    }
+}
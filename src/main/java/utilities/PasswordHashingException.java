@@ -0,0 +1,16 @@
+package utilities;
+
+public class PasswordHashingException extends RuntimeException {
+
+    public PasswordHashingException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public PasswordHashingException(Throwable cause) {
+        super(cause);
+    }
+}
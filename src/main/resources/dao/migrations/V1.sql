@@ -0,0 +1,11 @@
+-- Unique score per student and test
+
+-- Keeps the most recent score row of each student and test
+DELETE doublon FROM gnw_examen_note doublon
+  INNER JOIN gnw_examen_note recent
+    ON recent.fk_examen = doublon.fk_examen
+   AND recent.fk_etudiant = doublon.fk_etudiant
+   AND recent.id > doublon.id;
+
+ALTER TABLE gnw_examen_note
+  ADD UNIQUE INDEX `gnw_examen_note.fk_examen_fk_etudiant_UNIQUE` (fk_examen, fk_etudiant);
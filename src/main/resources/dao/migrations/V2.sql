@@ -0,0 +1,38 @@
+-- Composite indexes of the login, search and gradebook queries
+
+-- Scores of a student in a test, and every score of a test read from the index only
+ALTER TABLE gnw_examen_note
+  ADD INDEX `gnw_examen_note.fk_examen_fk_etudiant_date_suppr_idx` (fk_examen, fk_etudiant, date_suppr);
+
+ALTER TABLE gnw_examen_note
+  ADD INDEX `gnw_examen_note.fk_examen_date_suppr_note_idx` (fk_examen, date_suppr, note);
+
+-- Already covered by the unique key and the composite indexes
+ALTER TABLE gnw_examen_note
+  DROP INDEX `gnw_examen_note.fk_examen_idx`;
+
+-- Login and email checks of a profile
+ALTER TABLE gnw_utilisateur
+  ADD INDEX `gnw_utilisateur.profil_adresse_mail_date_suppr_idx` (profil, adresse_mail, date_suppr);
+
+-- Search of a profile sorted by name
+ALTER TABLE gnw_utilisateur
+  ADD INDEX `gnw_utilisateur.profil_date_suppr_nom_idx` (profil, date_suppr, nom, id);
+
+-- Tests of a subject and a group, tests of a group for the gradebook
+ALTER TABLE gnw_examen
+  ADD INDEX `gnw_examen.fk_matiere_fk_groupe_date_suppr_idx` (fk_matiere, fk_groupe, date_suppr);
+
+ALTER TABLE gnw_examen
+  ADD INDEX `gnw_examen.fk_groupe_date_suppr_idx` (fk_groupe, date_suppr);
+
+-- Tests of a teacher sorted by name
+ALTER TABLE gnw_examen
+  ADD INDEX `gnw_examen.fk_professeur_date_suppr_nom_idx` (fk_professeur, date_suppr, nom, id);
+
+-- Group of a student and students of a group
+ALTER TABLE gnw_etudiant_groupe
+  ADD INDEX `gnw_etudiant_groupe.fk_etudiant_fk_groupe_idx` (fk_etudiant, fk_groupe);
+
+ALTER TABLE gnw_etudiant_groupe
+  ADD INDEX `gnw_etudiant_groupe.fk_groupe_fk_etudiant_idx` (fk_groupe, fk_etudiant);
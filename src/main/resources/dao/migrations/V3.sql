@@ -0,0 +1,20 @@
+-- Number, lowest and highest scores of a test next to its average
+
+ALTER TABLE gnw_examen
+  ADD COLUMN nb_notes INT(11) NOT NULL DEFAULT 0 AFTER moyenne;
+
+ALTER TABLE gnw_examen
+  ADD COLUMN note_min FLOAT NULL DEFAULT NULL AFTER nb_notes;
+
+ALTER TABLE gnw_examen
+  ADD COLUMN note_max FLOAT NULL DEFAULT NULL AFTER note_min;
+
+-- Statistics of the existing tests
+UPDATE gnw_examen
+  LEFT JOIN (SELECT fk_examen, AVG(note) AS moyenne, COUNT(note) AS nb_notes, MIN(note) AS note_min, MAX(note) AS note_max
+               FROM gnw_examen_note WHERE date_suppr IS NULL GROUP BY fk_examen) statistiques
+    ON statistiques.fk_examen = gnw_examen.id
+  SET gnw_examen.moyenne = COALESCE(statistiques.moyenne, 0),
+      gnw_examen.nb_notes = COALESCE(statistiques.nb_notes, 0),
+      gnw_examen.note_min = statistiques.note_min,
+      gnw_examen.note_max = statistiques.note_max;
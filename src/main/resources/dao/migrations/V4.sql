@@ -0,0 +1,18 @@
+-- Weighted sum of the scores of each student in each subject
+
+CREATE TABLE IF NOT EXISTS gnw_moyenne_matiere (
+  fk_etudiant INT(11) NOT NULL,
+  fk_matiere INT(11) NOT NULL,
+  somme_ponderee DOUBLE NOT NULL DEFAULT 0,
+  somme_coefficients DOUBLE NOT NULL DEFAULT 0,
+  nb_notes INT(11) NOT NULL DEFAULT 0,
+  PRIMARY KEY (fk_etudiant, fk_matiere))
+ENGINE = InnoDB;
+
+-- Sums of the existing scores
+INSERT INTO gnw_moyenne_matiere (fk_etudiant, fk_matiere, somme_ponderee, somme_coefficients, nb_notes)
+  SELECT gnw_examen_note.fk_etudiant, gnw_examen.fk_matiere, SUM(gnw_examen_note.note * gnw_examen.coefficient), SUM(gnw_examen.coefficient), COUNT(gnw_examen_note.note)
+    FROM gnw_examen_note INNER JOIN gnw_examen ON gnw_examen.id = gnw_examen_note.fk_examen
+   WHERE gnw_examen.date_suppr IS NULL AND gnw_examen_note.date_suppr IS NULL AND gnw_examen_note.note IS NOT NULL
+   GROUP BY gnw_examen_note.fk_etudiant, gnw_examen.fk_matiere
+  ON DUPLICATE KEY UPDATE somme_ponderee = VALUES(somme_ponderee), somme_coefficients = VALUES(somme_coefficients), nb_notes = VALUES(nb_notes);
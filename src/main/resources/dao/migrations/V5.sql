@@ -0,0 +1,4 @@
+-- Index of the login by email address, whatever the profile
+
+ALTER TABLE gnw_utilisateur
+  ADD INDEX `gnw_utilisateur.adresse_mail_date_suppr_idx` (adresse_mail, date_suppr);
@@ -34,6 +34,29 @@ var createStudent = function() {
     });
 };
 
+/**
+ * Import students from a CSV file
+ */
+var importStudents = function() {
+    $('#import-students').submit(function(event) {
+        event.preventDefault();
+        var modalWindow = $('#modal');
+        var url         = $(this).attr('action');
+
+        $.ajax({
+            type:        'post',
+            url:         baseURL + url,
+            data:        new FormData(this),
+            processData: false,
+            contentType: false,
+            success:     function(view) {
+                modalWindow.html(view);
+                initModalWindow(300);
+            }
+        });
+    });
+};
+
 /**
  * Edit a student
  */
@@ -98,6 +98,29 @@ var editTest = function() {
     });
 };
 
+/**
+ * Import the scores of a test from a CSV file
+ */
+var importScores = function() {
+    $('#import-scores').submit(function(event) {
+        event.preventDefault();
+        var modalWindow = $('#modal');
+        var url         = $(this).attr('action');
+
+        $.ajax({
+            type:        'post',
+            url:         baseURL + url,
+            data:        new FormData(this),
+            processData: false,
+            contentType: false,
+            success:     function(view) {
+                modalWindow.html(view);
+                initModalWindow(300);
+            }
+        });
+    });
+};
+
 /**
  * Delete a test
  */
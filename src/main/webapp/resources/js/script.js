@@ -427,6 +427,29 @@ var createStudent = function() {
     });
 };
 
+/**
+ * Import students from a CSV file
+ */
+var importStudents = function() {
+    $('#import-students').submit(function(event) {
+        event.preventDefault();
+        var modalWindow = $('#modal');
+        var url         = $(this).attr('action');
+
+        $.ajax({
+            type:        'post',
+            url:         baseURL + url,
+            data:        new FormData(this),
+            processData: false,
+            contentType: false,
+            success:     function(view) {
+                modalWindow.html(view);
+                initModalWindow(300);
+            }
+        });
+    });
+};
+
 /**
  * Edit a student
  */
@@ -861,6 +884,29 @@ var editTest = function() {
     });
 };
 
+/**
+ * Import the scores of a test from a CSV file
+ */
+var importScores = function() {
+    $('#import-scores').submit(function(event) {
+        event.preventDefault();
+        var modalWindow = $('#modal');
+        var url         = $(this).attr('action');
+
+        $.ajax({
+            type:        'post',
+            url:         baseURL + url,
+            data:        new FormData(this),
+            processData: false,
+            contentType: false,
+            success:     function(view) {
+                modalWindow.html(view);
+                initModalWindow(300);
+            }
+        });
+    });
+};
+
 /**
  * Deletes a test
  */